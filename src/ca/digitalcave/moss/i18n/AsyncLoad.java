@@ -0,0 +1,213 @@
+/*
+ * Created on Oct 19, 2026 by agent
+ */
+package ca.digitalcave.moss.i18n;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A single call to Translator.loadLanguagesAsync().  Each language file is
+ * read into memory on the I/O executor, and then parsed on the compute
+ * executor.  Once every language has been parsed, they are merged in
+ * order and published to the Translator in a single step, and the future
+ * completes.  If any file cannot be read or parsed, the future fails with
+ * that exception, and the Translator is not changed.
+ *
+ * The future itself is never run; it is completed by the tasks which it
+ * schedules.  Once it completes (including by cancellation), the listener
+ * is told through loaded() or failed(), so that callers never need to
+ * block on the future.
+ *
+ * Whichever of finish(), a failure or cancel() claims the future first
+ * is the only one which completes it.  Once finish() has claimed it, the
+ * translations are published and cancel() returns false, so a cancelled
+ * or failed load never leaves its translations behind.
+ *
+ * @author agent
+ *
+ */
+class AsyncLoad extends FutureTask<Translator> {
+
+	/**
+	 * Where to read the language files from.
+	 */
+	interface Source {
+		/**
+		 * Opens the given language, or returns null if it does not exist.
+		 */
+		public InputStream open(String language) throws IOException;
+	}
+
+	private final Translator translator;
+	private final List<String> languages;
+	private final Source source;
+	private final Executor ioExecutor;
+	private final Executor computeExecutor;
+	private final Translator.LoadListener listener;
+
+	private final Properties[] layers;
+	private final AtomicInteger remaining;
+	private final AtomicBoolean claimed = new AtomicBoolean();
+
+	AsyncLoad(Translator translator, List<String> languages, Source source, Executor ioExecutor, Executor computeExecutor, Translator.LoadListener listener) {
+		super(new Callable<Translator>(){
+			public Translator call() throws Exception {
+				throw new IllegalStateException("AsyncLoad is completed by its own tasks");
+			}
+		});
+		this.translator = translator;
+		this.languages = languages;
+		this.source = source;
+		this.ioExecutor = ioExecutor;
+		this.computeExecutor = computeExecutor;
+		this.listener = listener;
+		this.layers = new Properties[languages.size()];
+		this.remaining = new AtomicInteger(languages.size());
+	}
+
+	void start(){
+		if (languages.isEmpty()){
+			finish();
+			return;
+		}
+
+		try {
+			for (int i = 0; i < languages.size(); i++) {
+				final int index = i;
+				ioExecutor.execute(new Runnable(){
+					public void run() {
+						read(index);
+					}
+				});
+			}
+		}
+		catch (Throwable t){
+			fail(t);
+		}
+	}
+
+	private void read(final int index){
+		if (isDone())
+			return;
+
+		String language = languages.get(index);
+		try {
+			InputStream is = source.open(language);
+			if (is == null){
+				//This is not an error; partial translations are normal.
+				if (listener != null)
+					listener.languageMissing(language);
+				layerDone();
+				return;
+			}
+
+			final byte[] bytes;
+			try {
+				ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+				byte[] chunk = new byte[8192];
+				int read;
+				while ((read = is.read(chunk)) >= 0)
+					buffer.write(chunk, 0, read);
+				bytes = buffer.toByteArray();
+			}
+			finally {
+				is.close();
+			}
+
+			computeExecutor.execute(new Runnable(){
+				public void run() {
+					parse(index, bytes);
+				}
+			});
+		}
+		catch (Throwable t){
+			fail(t);
+		}
+	}
+
+	private void parse(int index, byte[] bytes){
+		if (isDone())
+			return;
+
+		try {
+			Properties layer = new Properties();
+			layer.load(new ByteArrayInputStream(bytes));
+			layers[index] = layer;
+			if (listener != null)
+				listener.languageLoaded(languages.get(index));
+			layerDone();
+		}
+		catch (Throwable t){
+			fail(t);
+		}
+	}
+
+	private void layerDone(){
+		//The atomic decrement makes every layer written before it visible to the last task.
+		if (remaining.decrementAndGet() == 0)
+			finish();
+	}
+
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		if (!claimed.compareAndSet(false, true))
+			return false;
+		return super.cancel(mayInterruptIfRunning);
+	}
+
+	@Override
+	protected void done() {
+		if (listener == null)
+			return;
+
+		Translator result;
+		try {
+			result = get();
+		}
+		catch (ExecutionException ee){
+			listener.failed(ee.getCause());
+			return;
+		}
+		catch (CancellationException ce){
+			listener.failed(ce);
+			return;
+		}
+		catch (InterruptedException ie){
+			//Cannot happen, since the future is already done
+			Thread.currentThread().interrupt();
+			return;
+		}
+		listener.loaded(result);
+	}
+
+	private void fail(Throwable t){
+		if (claimed.compareAndSet(false, true))
+			setException(t);
+	}
+
+	private void finish(){
+		if (!claimed.compareAndSet(false, true))
+			return;
+
+		try {
+			translator.publishLayers(languages, layers);
+		}
+		catch (Throwable t){
+			setException(t);
+			return;
+		}
+		set(translator);
+	}
+}
@@ -0,0 +1,45 @@
+/*
+ * Created on Oct 19, 2026 by agent
+ */
+package ca.digitalcave.moss.i18n;
+
+import java.util.Properties;
+
+/**
+ * The storage behind a Translator.  The Translator publishes a single 
+ * Catalog at a time; loading languages or changing the storage replaces 
+ * the whole catalog, so readers always see one consistent set of 
+ * translations.
+ * 
+ * @author agent
+ *
+ */
+interface Catalog {
+	
+	/**
+	 * Returns the value for the given key, or null if it is not translated.
+	 * @param key
+	 * @return
+	 */
+	public String get(String key);
+	
+	/**
+	 * Returns the number of translated keys.
+	 * @return
+	 */
+	public int size();
+	
+	/**
+	 * Returns a new Properties object containing all translations.  Changes 
+	 * to the returned object do not affect this catalog.
+	 * @return
+	 */
+	public Properties toProperties();
+	
+	/**
+	 * Returns the memory used by this catalog.  The returned usage does 
+	 * not include any layers; those are tracked by the Translator.
+	 * @return
+	 */
+	public MemoryUsage getMemoryUsage();
+}
@@ -0,0 +1,201 @@
+/*
+ * Created on Oct 19, 2026 by agent
+ */
+package ca.digitalcave.moss.i18n;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * A set of changes to the translations of a single language, which can be
+ * applied to a running Translator using Translator.applyPatch().  This
+ * allows us to fix a single term without reloading every language file.
+ *
+ * Each patch moves the translations from one patch version to the next.
+ * A Translator only accepts a patch whose base version matches the last
+ * patch it applied, so that every process which applies the same patches
+ * ends up with the same translations.  Translators start at patch version
+ * 0.
+ *
+ * Patches can be created by comparing two sets of translations with
+ * diff(), and can be written to and read from a compact binary format.
+ * See PatchDirectory for a simple way to share patches between processes.
+ *
+ * @author agent
+ *
+ */
+public class CatalogPatch {
+
+	private static final int MAGIC = 0x4d504154;	//"MPAT"
+	private static final int FORMAT_VERSION = 1;
+
+	private final String language;
+	private final long baseVersion;
+	private final long version;
+	private final Map<String, String> puts;
+	private final Set<String> removals;
+
+	/**
+	 * Creates a new patch.
+	 * @param language The language which this patch changes
+	 * @param baseVersion The patch version which this patch must be applied on top of
+	 * @param version The patch version after this patch is applied; must be greater than baseVersion
+	 * @param puts The keys which are added or changed, and their new values
+	 * @param removals The keys which are removed
+	 */
+	public CatalogPatch(String language, long baseVersion, long version, Map<String, String> puts, Set<String> removals) {
+		if (version <= baseVersion)
+			throw new IllegalArgumentException("Patch version " + version + " must be greater than base version " + baseVersion);
+
+		this.language = language;
+		this.baseVersion = baseVersion;
+		this.version = version;
+		this.puts = Collections.unmodifiableMap(new LinkedHashMap<String, String>(puts));
+		this.removals = Collections.unmodifiableSet(new LinkedHashSet<String>(removals));
+	}
+
+	/**
+	 * Creates a patch which changes the translations in before into the
+	 * translations in after.
+	 * @param language The language which this patch changes
+	 * @param baseVersion The patch version which this patch must be applied on top of
+	 * @param before The translations before the change, e.g. Translator.getTranslations()
+	 * @param after The translations after the change
+	 * @return
+	 */
+	public static CatalogPatch diff(String language, long baseVersion, Properties before, Properties after){
+		Map<String, String> puts = new LinkedHashMap<String, String>();
+		Set<String> removals = new LinkedHashSet<String>();
+
+		for (String key : after.stringPropertyNames()) {
+			String value = after.getProperty(key);
+			if (!value.equals(before.getProperty(key)))
+				puts.put(key, value);
+		}
+		for (String key : before.stringPropertyNames()) {
+			if (after.getProperty(key) == null)
+				removals.add(key);
+		}
+
+		return new CatalogPatch(language, baseVersion, baseVersion + 1, puts, removals);
+	}
+
+	public String getLanguage() {
+		return language;
+	}
+
+	public long getBaseVersion() {
+		return baseVersion;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return The keys which are added or changed, and their new values.
+	 */
+	public Map<String, String> getPuts() {
+		return puts;
+	}
+
+	/**
+	 * @return The keys which are removed.
+	 */
+	public Set<String> getRemovals() {
+		return removals;
+	}
+
+	/**
+	 * Writes this patch to the given stream.  The stream is not closed.
+	 * @param os
+	 * @throws IOException
+	 */
+	public void write(OutputStream os) throws IOException {
+		DataOutputStream out = new DataOutputStream(os);
+		out.writeInt(MAGIC);
+		out.writeByte(FORMAT_VERSION);
+		writeString(out, language);
+		out.writeLong(baseVersion);
+		out.writeLong(version);
+		out.writeInt(puts.size());
+		for (Map.Entry<String, String> entry : puts.entrySet()) {
+			writeString(out, entry.getKey());
+			writeString(out, entry.getValue());
+		}
+		out.writeInt(removals.size());
+		for (String key : removals) {
+			writeString(out, key);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Reads a patch from the given stream, as written by write().  The
+	 * stream is not closed.
+	 * @param is
+	 * @return
+	 * @throws IOException If the stream does not contain a valid patch
+	 */
+	public static CatalogPatch read(InputStream is) throws IOException {
+		DataInputStream in = new DataInputStream(is);
+		if (in.readInt() != MAGIC)
+			throw new IOException("Not a catalog patch");
+		int format = in.readByte();
+		if (format != FORMAT_VERSION)
+			throw new IOException("Unsupported catalog patch format " + format);
+
+		String language = readString(in);
+		long baseVersion = in.readLong();
+		long version = in.readLong();
+
+		int count = in.readInt();
+		Map<String, String> puts = new LinkedHashMap<String, String>();
+		for (int i = 0; i < count; i++) {
+			String key = readString(in);
+			puts.put(key, readString(in));
+		}
+		count = in.readInt();
+		Set<String> removals = new LinkedHashSet<String>();
+		for (int i = 0; i < count; i++) {
+			removals.add(readString(in));
+		}
+
+		try {
+			return new CatalogPatch(language, baseVersion, version, puts, removals);
+		}
+		catch (IllegalArgumentException iae){
+			throw new IOException(iae.getMessage());
+		}
+	}
+
+	//We don't use writeUTF(), since it is limited to 64k per string.
+	static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes("UTF-8");
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0)
+			throw new IOException("Invalid string length " + length);
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8");
+	}
+
+	@Override
+	public String toString() {
+		return "CatalogPatch [" + language + " " + baseVersion + " -> " + version + ", puts=" + puts.size() + ", removals=" + removals.size() + "]";
+	}
+}
@@ -0,0 +1,215 @@
+/*
+ * Created on Oct 19, 2026 by agent
+ */
+package ca.digitalcave.moss.i18n;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * The fully loaded state of a Translator (the merged translations, the
+ * layers which were loaded, and the patch version and language), saved to a file so
+ * that it can be restored on the next start without reading and merging
+ * the language files again.
+ *
+ * Each snapshot records a fingerprint of the language files which it was
+ * built from (see getFingerprint()).  A snapshot is only restored if the
+ * fingerprint still matches, and if its checksum is correct; otherwise
+ * read() returns null, and the caller loads the language files as usual.
+ *
+ * The file is a magic number, a format version, the fingerprint, the
+ * contents, and finally a CRC32 of everything before it.  It is read into
+ * memory in one sequential read before being parsed.
+ *
+ * @author agent
+ *
+ */
+class CatalogSnapshot {
+
+	private static final int MAGIC = 0x4d534e50;	//"MSNP"
+	private static final int FORMAT_VERSION = 2;
+
+	final long fingerprint;
+	final long patchVersion;
+	final String patchLanguage;
+	final List<MemoryUsage.Layer> layers;
+	final Properties translations;
+
+	CatalogSnapshot(long fingerprint, long patchVersion, String patchLanguage, List<MemoryUsage.Layer> layers, Properties translations) {
+		this.fingerprint = fingerprint;
+		this.patchVersion = patchVersion;
+		this.patchLanguage = patchLanguage;
+		this.layers = layers;
+		this.translations = translations;
+	}
+
+	/**
+	 * Returns a fingerprint of the given language files: their names,
+	 * sizes and modification times, along with the names of the languages
+	 * and the key filter (if any), since those change what is loaded.
+	 * @param files The language files (or jar file), in the order they are loaded
+	 * @param names The languages, and anything else which identifies them (e.g. a path inside the jar file)
+	 * @param keyFilter The key filter in use, or null
+	 * @return
+	 */
+	static long getFingerprint(List<File> files, List<String> names, Collection<String> keyFilter){
+		long h = 1125899906842597L;
+		for (String name : names) {
+			h = hash(h, name);
+		}
+		for (File file : files) {
+			h = hash(h, file.getAbsolutePath());
+			h = 31 * h + (file.isFile() ? file.length() : -1);
+			h = 31 * h + file.lastModified();
+		}
+		if (keyFilter != null){
+			for (String key : new TreeSet<String>(keyFilter)) {
+				h = hash(h, key);
+			}
+		}
+		return h;
+	}
+
+	private static long hash(long h, String s){
+		for (int i = 0; i < s.length(); i++)
+			h = 31 * h + s.charAt(i);
+		return 31 * h + s.length();
+	}
+
+	/**
+	 * Writes this snapshot to the given file.  The snapshot is written to a
+	 * temporary file first, and then renamed, so that a crash while writing
+	 * cannot leave a partial snapshot behind.
+	 * @param file
+	 * @throws IOException
+	 */
+	void write(File file) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(buffer);
+		out.writeInt(MAGIC);
+		out.writeByte(FORMAT_VERSION);
+		out.writeLong(fingerprint);
+		out.writeLong(patchVersion);
+		out.writeBoolean(patchLanguage != null);
+		if (patchLanguage != null)
+			CatalogPatch.writeString(out, patchLanguage);
+
+		out.writeInt(layers.size());
+		for (MemoryUsage.Layer layer : layers) {
+			CatalogPatch.writeString(out, layer.getLanguage());
+			out.writeInt(layer.getKeyCount());
+			out.writeInt(layer.getOverriddenCount());
+			out.writeLong(layer.getKeyBytes());
+			out.writeLong(layer.getValueBytes());
+			out.writeLong(layer.getSharedBytes());
+		}
+
+		out.writeInt(translations.size());
+		for (Map.Entry<Object, Object> entry : translations.entrySet()) {
+			CatalogPatch.writeString(out, entry.getKey().toString());
+			CatalogPatch.writeString(out, entry.getValue().toString());
+		}
+		out.flush();
+
+		CRC32 crc = new CRC32();
+		crc.update(buffer.toByteArray());
+		out.writeLong(crc.getValue());
+		out.flush();
+
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.exists())
+			parent.mkdirs();
+		File temp = File.createTempFile("snapshot.", ".tmp", parent);
+		OutputStream os = new FileOutputStream(temp);
+		try {
+			buffer.writeTo(os);
+		}
+		finally {
+			os.close();
+		}
+
+		file.delete();
+		if (!temp.renameTo(file)){
+			temp.delete();
+			throw new IOException("Could not rename " + temp.getName() + " to " + file.getName());
+		}
+	}
+
+	/**
+	 * Reads the snapshot in the given file, if it exists, is valid, and was
+	 * built from language files with the given fingerprint.
+	 * @param file
+	 * @param fingerprint
+	 * @return The snapshot, or null if it cannot be used.
+	 */
+	static CatalogSnapshot read(File file, long fingerprint){
+		if (!file.isFile() || file.length() > Integer.MAX_VALUE)
+			return null;
+
+		try {
+			byte[] bytes = new byte[(int) file.length()];
+			InputStream is = new FileInputStream(file);
+			try {
+				new DataInputStream(is).readFully(bytes);
+			}
+			finally {
+				is.close();
+			}
+
+			if (bytes.length < 8)
+				return null;
+			CRC32 crc = new CRC32();
+			crc.update(bytes, 0, bytes.length - 8);
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, bytes.length - 8, 8));
+			if (in.readLong() != crc.getValue()){
+				Logger.getLogger(CatalogSnapshot.class.getName()).info("Ignoring snapshot " + file + "; checksum does not match");
+				return null;
+			}
+
+			in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 8));
+			if (in.readInt() != MAGIC || in.readByte() != FORMAT_VERSION)
+				return null;
+			if (in.readLong() != fingerprint){
+				Logger.getLogger(CatalogSnapshot.class.getName()).finest("Ignoring snapshot " + file + "; language files have changed");
+				return null;
+			}
+			long patchVersion = in.readLong();
+			String patchLanguage = (in.readBoolean() ? CatalogPatch.readString(in) : null);
+
+			int count = in.readInt();
+			List<MemoryUsage.Layer> layers = new ArrayList<MemoryUsage.Layer>(count);
+			for (int i = 0; i < count; i++) {
+				layers.add(new MemoryUsage.Layer(CatalogPatch.readString(in), in.readInt(), in.readInt(), in.readLong(), in.readLong(), in.readLong()));
+			}
+
+			count = in.readInt();
+			Properties translations = new Properties();
+			for (int i = 0; i < count; i++) {
+				String key = CatalogPatch.readString(in);
+				translations.setProperty(key, CatalogPatch.readString(in));
+			}
+
+			return new CatalogSnapshot(fingerprint, patchVersion, patchLanguage, layers, translations);
+		}
+		catch (IOException ioe){
+			Logger.getLogger(CatalogSnapshot.class.getName()).info("Ignoring snapshot " + file + ": " + ioe);
+			return null;
+		}
+	}
+}
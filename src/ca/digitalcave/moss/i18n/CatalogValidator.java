@@ -0,0 +1,414 @@
+/*
+ * Created on Oct 19, 2026 by agent
+ */
+package ca.digitalcave.moss.i18n;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import ca.digitalcave.moss.common.ClassLoaderFunctions;
+
+/**
+ * A headless version of the checks which the LanguageEditor shows visually.
+ * For each language, we report the keys which are missing (in the enums,
+ * but not translated), extra (translated, but not in the enums; the editor
+ * shows these in red), stale (translated, but identical to the reference
+ * language, so probably copied and never translated), and keys where the
+ * MessageFormat placeholders ({0}, {1}, ...) differ from the reference
+ * language.
+ *
+ * Each language is checked through the same chain of languages which
+ * Translator.getLanguageList() loads, with the reference language in place
+ * of English; a key is only missing if no language in the chain has it, so
+ * partial localizations (e.g. Espanol_(MX)) which rely on their base 
+ * language are not reported.  Extra, stale and placeholder problems are
+ * reported for the keys in each file itself.  The optional locale keys
+ * (LOCALE_COUNTRY_CODE and LOCALE_VARIANT_CODE) are never missing.
+ *
+ * Language files are read from the same places as the Translator loads
+ * them from, in parallel, into plain Properties; validating does not 
+ * change the default locale.  This is designed to be run from a build
+ * script:
+ *
+ * <code>
+ * java -cp ... ca.digitalcave.moss.i18n.CatalogValidator -dir path/to/languages com.example.FirstEnum com.example.SecondEnum
+ * java -cp ... ca.digitalcave.moss.i18n.CatalogValidator -jar app.jar -path /languages com.example.FirstEnum
+ * </code>
+ *
+ * The report is written to standard out, one tab separated line per
+ * problem (language, type, key), followed by one summary line per
+ * language.  The exit status is 1 if any language has missing keys or
+ * placeholder mismatches, and 0 otherwise.
+ *
+ * @author agent
+ *
+ */
+public class CatalogValidator {
+
+	private static final Pattern PLACEHOLDER = Pattern.compile("\\{(\\d+)");
+	private static final Set<String> OPTIONAL_KEYS = new HashSet<String>();
+	static {
+		OPTIONAL_KEYS.add(Keys.LOCALE_COUNTRY_CODE.toString());
+		OPTIONAL_KEYS.add(Keys.LOCALE_VARIANT_CODE.toString());
+	}
+
+	private final Set<String> enumStrings = new HashSet<String>();
+	private final String translationSuffix;
+	private final String referenceLanguage;
+
+	public CatalogValidator() {
+		this(".lang", "English");
+	}
+
+	/**
+	 * Creates a new validator.
+	 * @param translationSuffix The suffix of the translation files, including the period if applicable.
+	 * @param referenceLanguage The language which all others are compared to for stale values and placeholders.
+	 */
+	public CatalogValidator(String translationSuffix, String referenceLanguage) {
+		this.translationSuffix = translationSuffix;
+		this.referenceLanguage = referenceLanguage;
+		loadKeys((Enum[]) Keys.values());
+	}
+
+	public void loadKeys(Enum<?>... keys){
+		for (Enum<?> key : keys) {
+			enumStrings.add(key.toString());
+		}
+	}
+
+	public void loadKeys(String... keys){
+		for (String key : keys) {
+			enumStrings.add(key);
+		}
+	}
+
+	/**
+	 * Validates every language file in the given directory.
+	 * @param languageDirectory
+	 * @return One report per language, sorted by language name.
+	 */
+	public List<Report> validate(final File languageDirectory) throws IOException {
+		List<String> languages = new LinkedList<String>();
+		File[] files = languageDirectory.listFiles();
+		if (files == null)
+			throw new IOException("Could not list " + languageDirectory.getAbsolutePath());
+		for (File file : files) {
+			if (file.isFile() && file.getName().endsWith(translationSuffix))
+				languages.add(file.getName().substring(0, file.getName().length() - translationSuffix.length()));
+		}
+
+		return validate(languages, new Source(){
+			public InputStream open(String language) throws IOException {
+				return new BufferedInputStream(new FileInputStream(new File(languageDirectory, language + translationSuffix)));
+			}
+		});
+	}
+
+	/**
+	 * Validates every language file in the given path inside a jar file.
+	 * @param jarFile
+	 * @param resourcePath The path to the languages, inside of the jar file.  Should be absolute (i.e., starting with a slash).
+	 * @return One report per language, sorted by language name.
+	 */
+	public List<Report> validate(final File jarFile, final String resourcePath) throws IOException {
+		List<String> languages = new LinkedList<String>();
+		String prefix = resourcePath.replaceAll("^/+", "");
+		if (prefix.length() > 0 && !prefix.endsWith("/"))
+			prefix += "/";
+
+		JarFile jar = new JarFile(jarFile);
+		try {
+			for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements(); ) {
+				String name = entries.nextElement().getName();
+				if (name.startsWith(prefix) && name.endsWith(translationSuffix) && name.indexOf('/', prefix.length()) < 0)
+					languages.add(name.substring(prefix.length(), name.length() - translationSuffix.length()));
+			}
+		}
+		finally {
+			jar.close();
+		}
+
+		return validate(languages, new Source(){
+			public InputStream open(String language) throws IOException {
+				InputStream is = ClassLoaderFunctions.getResourceAsStreamFromJar(jarFile, resourcePath + "/" + language + translationSuffix);
+				if (is == null)
+					throw new IOException("Could not open " + language + " in " + jarFile.getName());
+				return is;
+			}
+		});
+	}
+
+	private List<Report> validate(List<String> languages, final Source source) throws IOException {
+		Map<String, Properties> loaded = new HashMap<String, Properties>();
+
+		int threads = Math.max(1, Math.min(languages.size(), Runtime.getRuntime().availableProcessors()));
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			Map<String, Future<Properties>> futures = new LinkedHashMap<String, Future<Properties>>();
+			for (final String language : languages) {
+				futures.put(language, executor.submit(new Callable<Properties>(){
+					public Properties call() throws Exception {
+						return load(source, language);
+					}
+				}));
+			}
+
+			for (Map.Entry<String, Future<Properties>> entry : futures.entrySet()) {
+				try {
+					loaded.put(entry.getKey(), entry.getValue().get());
+				}
+				catch (ExecutionException ee){
+					throw new IOException("Error loading " + entry.getKey() + ": " + ee.getCause(), ee.getCause());
+				}
+				catch (InterruptedException ie){
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while loading languages");
+				}
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		Properties reference = loaded.get(referenceLanguage);
+		if (reference == null)
+			reference = new Properties();
+
+		List<Report> reports = new ArrayList<Report>(languages.size());
+		for (String language : languages) {
+			reports.add(check(language, loaded, reference));
+		}
+		Collections.sort(reports);
+		return reports;
+	}
+
+	private static Properties load(Source source, String language) throws IOException {
+		Properties translations = new Properties();
+		InputStream is = source.open(language);
+		try {
+			translations.load(is);
+		}
+		finally {
+			is.close();
+		}
+		return translations;
+	}
+
+	/**
+	 * Returns the languages which the Translator would load for the given
+	 * language (see Translator.getLanguageList()), with the reference 
+	 * language in place of English.
+	 * @param language
+	 * @return
+	 */
+	private List<String> getChain(String language){
+		List<String> chain = new ArrayList<String>(3);
+		chain.add(referenceLanguage);
+		String base = LanguageNegotiator.getBaseLanguage(language);
+		if (!chain.contains(base))
+			chain.add(base);
+		if (!chain.contains(language))
+			chain.add(language);
+		return chain;
+	}
+
+	private Report check(String language, Map<String, Properties> loaded, Properties reference){
+		Report report = new Report(language);
+		boolean isReference = language.equals(referenceLanguage);
+		Properties translations = loaded.get(language);
+
+		Properties resolved = new Properties();
+		for (String chained : getChain(language)) {
+			if (loaded.containsKey(chained))
+				resolved.putAll(loaded.get(chained));
+		}
+		for (String key : enumStrings) {
+			if (OPTIONAL_KEYS.contains(key))
+				continue;
+			if (resolved.getProperty(key) == null)
+				report.missing.add(key);
+		}
+
+		for (String key : translations.stringPropertyNames()) {
+			if (!enumStrings.contains(key))
+				report.extra.add(key);
+
+			String value = translations.getProperty(key);
+			String referenceValue = reference.getProperty(key);
+			if (isReference || referenceValue == null)
+				continue;
+
+			if (value.equals(referenceValue))
+				report.stale.add(key);
+			if (!getPlaceholders(value).equals(getPlaceholders(referenceValue)))
+				report.placeholders.add(key);
+		}
+
+		return report;
+	}
+
+	private static Set<String> getPlaceholders(String value){
+		Set<String> placeholders = new TreeSet<String>();
+		Matcher m = PLACEHOLDER.matcher(value);
+		while (m.find()){
+			placeholders.add(m.group(1));
+		}
+		return placeholders;
+	}
+
+	/**
+	 * Writes the reports in the tab separated format described in the class comments.
+	 * @param reports
+	 * @param out
+	 */
+	public static void print(List<Report> reports, PrintStream out){
+		for (Report report : reports) {
+			print(out, report.getLanguage(), "missing", report.getMissing());
+			print(out, report.getLanguage(), "extra", report.getExtra());
+			print(out, report.getLanguage(), "stale", report.getStale());
+			print(out, report.getLanguage(), "placeholder", report.getPlaceholders());
+		}
+		for (Report report : reports) {
+			out.println(report.getLanguage()
+					+ "\tsummary"
+					+ "\tmissing=" + report.getMissing().size()
+					+ "\textra=" + report.getExtra().size()
+					+ "\tstale=" + report.getStale().size()
+					+ "\tplaceholder=" + report.getPlaceholders().size());
+		}
+	}
+
+	private static void print(PrintStream out, String language, String type, Set<String> keys){
+		for (String key : keys) {
+			out.println(language + "\t" + type + "\t" + key);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		String suffix = ".lang";
+		String reference = "English";
+		File directory = null;
+		File jar = null;
+		String path = null;
+		List<String> enums = new LinkedList<String>();
+
+		for (int i = 0; i < args.length; i++) {
+			if ("-suffix".equals(args[i]) && i + 1 < args.length)
+				suffix = args[++i];
+			else if ("-reference".equals(args[i]) && i + 1 < args.length)
+				reference = args[++i];
+			else if ("-dir".equals(args[i]) && i + 1 < args.length)
+				directory = new File(args[++i]);
+			else if ("-jar".equals(args[i]) && i + 1 < args.length)
+				jar = new File(args[++i]);
+			else if ("-path".equals(args[i]) && i + 1 < args.length)
+				path = args[++i];
+			else
+				enums.add(args[i]);
+		}
+
+		if (directory == null && (jar == null || path == null)){
+			System.err.println("Usage: CatalogValidator [-suffix .lang] [-reference English] (-dir <directory> | -jar <file> -path <resourcePath>) <enum class>...");
+			System.exit(2);
+		}
+
+		CatalogValidator validator = new CatalogValidator(suffix, reference);
+		for (String className : enums) {
+			Class<?> c = Class.forName(className);
+			if (!c.isEnum()){
+				System.err.println(className + " is not an enum");
+				System.exit(2);
+			}
+			validator.loadKeys((Enum[]) c.getEnumConstants());
+		}
+
+		List<Report> reports = (directory != null ? validator.validate(directory) : validator.validate(jar, path));
+		print(reports, System.out);
+
+		for (Report report : reports) {
+			if (report.getMissing().size() > 0 || report.getPlaceholders().size() > 0)
+				System.exit(1);
+		}
+	}
+
+	private interface Source {
+		public InputStream open(String language) throws IOException;
+	}
+
+	/**
+	 * The results of validating a single language.  All key sets are sorted.
+	 */
+	public static class Report implements Comparable<Report> {
+		private final String language;
+		private final Set<String> missing = new TreeSet<String>();
+		private final Set<String> extra = new TreeSet<String>();
+		private final Set<String> stale = new TreeSet<String>();
+		private final Set<String> placeholders = new TreeSet<String>();
+
+		Report(String language) {
+			this.language = language;
+		}
+
+		public String getLanguage() {
+			return language;
+		}
+
+		/**
+		 * @return Keys which are in the loaded enums, but not in this language or the languages it falls back to.
+		 */
+		public Set<String> getMissing() {
+			return Collections.unmodifiableSet(missing);
+		}
+
+		/**
+		 * @return Keys which are in this language, but not in the loaded enums.
+		 */
+		public Set<String> getExtra() {
+			return Collections.unmodifiableSet(extra);
+		}
+
+		/**
+		 * @return Keys whose value is identical to the reference language.
+		 */
+		public Set<String> getStale() {
+			return Collections.unmodifiableSet(stale);
+		}
+
+		/**
+		 * @return Keys whose format placeholders differ from the reference language.
+		 */
+		public Set<String> getPlaceholders() {
+			return Collections.unmodifiableSet(placeholders);
+		}
+
+		public int compareTo(Report o) {
+			return language.compareTo(o.language);
+		}
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * Created on Oct 19, 2026 by agent
+ */
+package ca.digitalcave.moss.i18n;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Escaped translations for a single version of a Translator's catalog.
+ * Each value is escaped the first time it is asked for, and remembered 
+ * until the translations change, at which point the Translator replaces
+ * the whole cache.  Values which do not need escaping are stored as the 
+ * original instance, so they cost only a map entry.
+ * 
+ * Keys which are not translated are not cached, since any string can be
+ * asked for.
+ * 
+ * @author agent
+ *
+ */
+class EscapeCache {
+	
+	final Catalog catalog;
+	final long version;
+	
+	//Filled in by the constructor, and only read afterwards
+	private final Map<Escaping, ConcurrentMap<String, String>> escaped = new EnumMap<Escaping, ConcurrentMap<String, String>>(Escaping.class);
+	
+	EscapeCache(Catalog catalog, long version) {
+		this.catalog = catalog;
+		this.version = version;
+		for (Escaping escaping : Escaping.values()) {
+			escaped.put(escaping, new ConcurrentHashMap<String, String>());
+		}
+	}
+	
+	String get(String key, Escaping escaping){
+		ConcurrentMap<String, String> cache = escaped.get(escaping);
+		String ret = cache.get(key);
+		if (ret != null)
+			return ret;
+		
+		String raw = catalog.get(key);
+		if (raw == null)
+			return escaping.escape(key);
+		
+		ret = escaping.escape(raw);
+		cache.putIfAbsent(key, ret);
+		return ret;
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Created on Oct 19, 2026 by agent
+ */
+package ca.digitalcave.moss.i18n;
+
+import java.io.UnsupportedEncodingException;
+
+/**
+ * The contexts which translations can be escaped for, using the 
+ * Translator.getHtml(), getJs() and getUrl() methods.  Each escape 
+ * returns the same String instance when nothing needs to be escaped.
+ * 
+ * @author agent
+ *
+ */
+enum Escaping {
+	/**
+	 * HTML text and quoted attribute values.
+	 */
+	HTML {
+		@Override
+		String escape(char c) {
+			switch (c) {
+			case '&': return "&amp;";
+			case '<': return "&lt;";
+			case '>': return "&gt;";
+			case '"': return "&quot;";
+			case '\'': return "&#39;";
+			default: return null;
+			}
+		}
+	},
+	
+	/**
+	 * The inside of a JavaScript string literal (single or double quoted),
+	 * including one inside an HTML script element.
+	 */
+	JS {
+		@Override
+		String escape(char c) {
+			switch (c) {
+			case '\\': return "\\\\";
+			case '\'': return "\\'";
+			case '"': return "\\\"";
+			case '\n': return "\\n";
+			case '\r': return "\\r";
+			case '\t': return "\\t";
+			case '<': case '>': case '&': case '\u2028': case '\u2029':
+				return unicode(c);
+			default: 
+				return (c < ' ' ? unicode(c) : null);
+			}
+		}
+	},
+	
+	/**
+	 * A URL path segment or query parameter.  Characters other than the 
+	 * unreserved ones (letters, digits, and -_.~) are percent encoded as 
+	 * UTF-8.
+	 */
+	URL {
+		@Override
+		String escape(char c) {
+			if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') 
+					|| c == '-' || c == '_' || c == '.' || c == '~')
+				return null;
+			return "";		//Handled in escape(String), since it needs surrogate pairs
+		}
+		
+		@Override
+		String escape(String value) {
+			int i = firstEscaped(value);
+			if (i < 0)
+				return value;
+			
+			StringBuilder sb = new StringBuilder(value.length() * 3);
+			sb.append(value, 0, i);
+			try {
+				for (; i < value.length(); i++) {
+					char c = value.charAt(i);
+					if (escape(c) == null){
+						sb.append(c);
+						continue;
+					}
+					int end = (Character.isHighSurrogate(c) && i + 1 < value.length() ? i + 2 : i + 1);
+					for (byte b : value.substring(i, end).getBytes("UTF-8")) {
+						sb.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+					}
+					i = end - 1;
+				}
+			}
+			catch (UnsupportedEncodingException uee){
+				throw new RuntimeException(uee);		//UTF-8 is always supported
+			}
+			return sb.toString();
+		}
+	};
+	
+	private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+	
+	/**
+	 * Returns the replacement for the given character, or null if it does
+	 * not need to be escaped.
+	 */
+	abstract String escape(char c);
+	
+	/**
+	 * Returns the escaped value, or the value itself if nothing needs to 
+	 * be escaped.
+	 */
+	String escape(String value){
+		int i = firstEscaped(value);
+		if (i < 0)
+			return value;
+		
+		StringBuilder sb = new StringBuilder(value.length() + 16);
+		sb.append(value, 0, i);
+		for (; i < value.length(); i++) {
+			char c = value.charAt(i);
+			String replacement = escape(c);
+			if (replacement == null)
+				sb.append(c);
+			else
+				sb.append(replacement);
+		}
+		return sb.toString();
+	}
+	
+	int firstEscaped(String value){
+		for (int i = 0; i < value.length(); i++) {
+			if (escape(value.charAt(i)) != null)
+				return i;
+		}
+		return -1;
+	}
+	
+	private static String unicode(char c){
+		return "\\u" + HEX[(c >> 12) & 0xF] + HEX[(c >> 8) & 0xF] + HEX[(c >> 4) & 0xF] + HEX[c & 0xF];
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * Created on Oct 19, 2026 by agent
+ */
+package ca.digitalcave.moss.i18n;
+
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * A read only catalog indexed by a minimal perfect hash, built once the
+ * translations are final (see Translator.freeze()).  Every key maps to its
+ * own slot in parallel arrays of keys, values and key hash codes, so
+ * there are no collision chains or entry objects; a lookup is two hash
+ * computations, a few array reads and one String comparison (which 
+ * detects keys that are not in the catalog).  The stored hash code is
+ * compared first, so most misses never read the stored key.
+ *
+ * The index is built using "hash and displace": keys are first split into
+ * small buckets using their String hash code, and then, starting with the
+ * largest bucket, we search for a seed which sends every key in the bucket
+ * to a free slot.  Only the seed for each bucket is stored, which costs
+ * about two bytes per key.  Slots are normally computed by mixing the seed
+ * with the (cached) String hash code; buckets which contain keys with the
+ * same hash code cannot be separated that way, so their seed is stored as
+ * a negative number, and their slots are computed from the characters of
+ * the key instead.
+ *
+ * @author agent
+ *
+ */
+class FrozenCatalog implements Catalog {
+
+	private static final int MAX_SEED_ATTEMPTS = 1 << 24;
+
+	private final String[] keys;
+	private final String[] values;
+	private final int[] hashes;
+	private final int[] seeds;
+	private final long keyBytes;
+	private final long valueBytes;
+
+	public FrozenCatalog(Properties source) {
+		Set<String> names = source.stringPropertyNames();
+		int size = names.size();
+		String[] input = names.toArray(new String[size]);
+
+		keys = new String[size];
+		values = new String[size];
+		hashes = new int[size];
+		seeds = new int[Math.max(1, size / 2)];
+
+		long keyBytes = 0;
+		long valueBytes = 0;
+		for (String key : input) {
+			keyBytes += MemoryUsage.getStringBytes(key);
+			valueBytes += MemoryUsage.getStringBytes(source.getProperty(key));
+		}
+		this.keyBytes = keyBytes;
+		this.valueBytes = valueBytes;
+
+		if (size == 0)
+			return;
+
+		//Split the keys into buckets, as linked lists within an array
+		int[] bucketSize = new int[seeds.length];
+		int[] bucketHead = new int[seeds.length];
+		int[] next = new int[size];
+		for (int i = 0; i < bucketHead.length; i++)
+			bucketHead[i] = -1;
+		for (int i = 0; i < size; i++) {
+			int bucket = getBucket(input[i]);
+			next[i] = bucketHead[bucket];
+			bucketHead[bucket] = i;
+			bucketSize[bucket]++;
+		}
+
+		//Place the largest buckets first, while there is the most room.
+		int maxBucketSize = 0;
+		for (int s : bucketSize)
+			maxBucketSize = Math.max(maxBucketSize, s);
+		int[] slots = new int[maxBucketSize];
+		boolean[] used = new boolean[size];
+
+		for (int s = maxBucketSize; s > 0; s--) {
+			for (int bucket = 0; bucket < seeds.length; bucket++) {
+				if (bucketSize[bucket] != s)
+					continue;
+
+				int seed = (hasDuplicateHash(input, bucketHead[bucket], next) ? -1 : 1);
+				while (!tryPlace(input, bucketHead[bucket], next, seed, slots, used)){
+					seed += (seed > 0 ? 1 : -1);
+					if (Math.abs(seed) > MAX_SEED_ATTEMPTS)
+						throw new IllegalStateException("Could not build perfect hash for " + size + " keys");
+				}
+				seeds[bucket] = seed;
+
+				int n = 0;
+				for (int i = bucketHead[bucket]; i >= 0; i = next[i], n++) {
+					keys[slots[n]] = input[i];
+					hashes[slots[n]] = input[i].hashCode();
+					values[slots[n]] = source.getProperty(input[i]);
+				}
+			}
+		}
+	}
+
+	private static boolean hasDuplicateHash(String[] input, int head, int[] next){
+		for (int i = head; i >= 0; i = next[i]) {
+			for (int j = next[i]; j >= 0; j = next[j]) {
+				if (input[i].hashCode() == input[j].hashCode())
+					return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Tries to place every key in the given bucket using the given seed.  If
+	 * this succeeds, the slots are marked as used and stored in slots, in
+	 * the order of the bucket's list.
+	 */
+	private boolean tryPlace(String[] input, int head, int[] next, int seed, int[] slots, boolean[] used){
+		int n = 0;
+		for (int i = head; i >= 0; i = next[i], n++) {
+			int slot = getSlot(input[i], seed, used.length);
+			if (used[slot])
+				return false;
+			for (int j = 0; j < n; j++) {
+				if (slots[j] == slot)
+					return false;
+			}
+			slots[n] = slot;
+		}
+		for (int j = 0; j < n; j++)
+			used[slots[j]] = true;
+		return true;
+	}
+
+	public String get(String key) {
+		if (keys.length == 0)
+			return null;
+		int slot = getSlot(key, seeds[getBucket(key)], keys.length);
+		if (hashes[slot] == key.hashCode() && key.equals(keys[slot]))
+			return values[slot];
+		return null;
+	}
+
+	public int size() {
+		return keys.length;
+	}
+
+	public Properties toProperties() {
+		Properties properties = new Properties();
+		for (int i = 0; i < keys.length; i++) {
+			properties.setProperty(keys[i], values[i]);
+		}
+		return properties;
+	}
+
+	public MemoryUsage getMemoryUsage() {
+		//Two reference arrays and two int arrays, with their headers
+		long indexBytes = 4 * 16 + 4L * keys.length * 3 + 4L * seeds.length;
+		return new MemoryUsage(keys.length, keyBytes, valueBytes, indexBytes, false, null);
+	}
+
+	private int getBucket(String key){
+		//String caches its hash code, so this is cheap
+		int h = key.hashCode() * 0x9E3779B9;
+		return ((h ^ (h >>> 16)) & 0x7fffffff) % seeds.length;
+	}
+
+	private static int getSlot(String key, int seed, int size){
+		int h;
+		if (seed > 0){
+			h = key.hashCode() ^ (seed * 0x9E3779B9);
+		}
+		else {
+			//FNV-1a, seeded
+			h = -seed * 0x01000193 ^ 0x811C9DC5;
+			for (int i = 0; i < key.length(); i++)
+				h = (h ^ key.charAt(i)) * 0x01000193;
+		}
+
+		//MurmurHash3 finalizer
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		h *= 0xC2B2AE35;
+		h ^= h >>> 16;
+		return (h & 0x7fffffff) % size;
+	}
+}
@@ -0,0 +1,200 @@
+/*
+ * Created on Oct 19, 2026 by agent
+ */
+package ca.digitalcave.moss.i18n;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable map of Strings, stored as a hash array mapped trie.  put()
+ * returns a new map which shares everything except the path to the
+ * changed key with the old one, so a change costs a few small array
+ * copies (at most seven levels, and about four for a million keys),
+ * regardless of how many keys the map holds.  Lookups walk the same path.
+ *
+ * Each level of the trie uses five bits of the key's hash code.  Nodes
+ * only store the children which exist, using a bitmap to find them.  Keys
+ * whose hash codes are identical share a collision node.
+ *
+ * @author agent
+ *
+ */
+final class HashTrie {
+
+	static final HashTrie EMPTY = new HashTrie(null, 0);
+
+	//null, an Entry, a Node or a Collision
+	private final Object root;
+	private final int size;
+
+	private HashTrie(Object root, int size) {
+		this.root = root;
+		this.size = size;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public String get(String key){
+		int hash = key.hashCode();
+		Object node = root;
+		int shift = 0;
+		while (node instanceof Node){
+			Node n = (Node) node;
+			int bit = 1 << ((hash >>> shift) & 31);
+			if ((n.bitmap & bit) == 0)
+				return null;
+			node = n.children[Integer.bitCount(n.bitmap & (bit - 1))];
+			shift += 5;
+		}
+
+		if (node instanceof Entry){
+			Entry e = (Entry) node;
+			return (e.hash == hash && e.key.equals(key) ? e.value : null);
+		}
+		if (node instanceof Collision){
+			for (Entry e : ((Collision) node).entries) {
+				if (e.key.equals(key))
+					return e.value;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns a map with the given key set to the given value.  This map
+	 * is not changed.
+	 */
+	public HashTrie put(String key, String value){
+		boolean[] added = new boolean[1];
+		Object next = put(root, 0, new Entry(key, value), added);
+		return new HashTrie(next, added[0] ? size + 1 : size);
+	}
+
+	/**
+	 * Returns a copy of the map's contents.
+	 */
+	public Map<String, String> toMap(){
+		Map<String, String> map = new HashMap<String, String>(size * 2);
+		collect(root, map);
+		return map;
+	}
+
+	private static Object put(Object node, int shift, Entry entry, boolean[] added){
+		if (node == null){
+			added[0] = true;
+			return entry;
+		}
+
+		if (node instanceof Entry){
+			Entry e = (Entry) node;
+			if (e.hash != entry.hash){
+				added[0] = true;
+				return split(e, e.hash, entry, shift);
+			}
+			if (e.key.equals(entry.key))
+				return entry;
+			added[0] = true;
+			return new Collision(new Entry[]{e, entry});
+		}
+
+		if (node instanceof Collision){
+			Collision c = (Collision) node;
+			if (c.entries[0].hash != entry.hash){
+				added[0] = true;
+				return split(c, c.entries[0].hash, entry, shift);
+			}
+			for (int i = 0; i < c.entries.length; i++) {
+				if (c.entries[i].key.equals(entry.key)){
+					Entry[] entries = c.entries.clone();
+					entries[i] = entry;
+					return new Collision(entries);
+				}
+			}
+			Entry[] entries = new Entry[c.entries.length + 1];
+			System.arraycopy(c.entries, 0, entries, 0, c.entries.length);
+			entries[c.entries.length] = entry;
+			added[0] = true;
+			return new Collision(entries);
+		}
+
+		Node n = (Node) node;
+		int bit = 1 << ((entry.hash >>> shift) & 31);
+		int index = Integer.bitCount(n.bitmap & (bit - 1));
+		if ((n.bitmap & bit) == 0){
+			Object[] children = new Object[n.children.length + 1];
+			System.arraycopy(n.children, 0, children, 0, index);
+			children[index] = entry;
+			System.arraycopy(n.children, index, children, index + 1, n.children.length - index);
+			added[0] = true;
+			return new Node(n.bitmap | bit, children);
+		}
+
+		Object[] children = n.children.clone();
+		children[index] = put(children[index], shift + 5, entry, added);
+		return new Node(n.bitmap, children);
+	}
+
+	/**
+	 * Returns a node containing both the existing node and the new entry,
+	 * whose hash codes differ.
+	 */
+	private static Object split(Object existing, int existingHash, Entry entry, int shift){
+		int a = (existingHash >>> shift) & 31;
+		int b = (entry.hash >>> shift) & 31;
+		if (a == b)
+			return new Node(1 << a, new Object[]{split(existing, existingHash, entry, shift + 5)});
+		if (a < b)
+			return new Node((1 << a) | (1 << b), new Object[]{existing, entry});
+		return new Node((1 << a) | (1 << b), new Object[]{entry, existing});
+	}
+
+	private static void collect(Object node, Map<String, String> map){
+		if (node instanceof Entry){
+			map.put(((Entry) node).key, ((Entry) node).value);
+		}
+		else if (node instanceof Collision){
+			for (Entry e : ((Collision) node).entries) {
+				map.put(e.key, e.value);
+			}
+		}
+		else if (node instanceof Node){
+			for (Object child : ((Node) node).children) {
+				collect(child, map);
+			}
+		}
+	}
+
+	private static final class Entry {
+		final String key;
+		final String value;
+		final int hash;
+
+		Entry(String key, String value) {
+			this.key = key;
+			this.value = value;
+			this.hash = key.hashCode();
+		}
+	}
+
+	private static final class Node {
+		final int bitmap;
+		final Object[] children;
+
+		Node(int bitmap, Object[] children) {
+			this.bitmap = bitmap;
+			this.children = children;
+		}
+	}
+
+	//Entries whose keys have the same hash code
+	private static final class Collision {
+		final Entry[] entries;
+
+		Collision(Entry[] entries) {
+			this.entries = entries;
+		}
+	}
+}
@@ -0,0 +1,484 @@
+/*
+ * Created on Oct 19, 2026 by agent
+ */
+package ca.digitalcave.moss.i18n;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * A build time tool which finds the translation keys that are actually
+ * used by compiled code, so that unused keys can be left out of the
+ * language files (or skipped when loading them, using
+ * Translator.setKeyFilter()).
+ *
+ * We read the constant pool of each class file, and count a key as used
+ * if either:
+ * <ul>
+ * <li>The class refers to a constant of one of the key enums.  Any
+ * reference counts, since keys are often passed around before being
+ * translated.  The key enums themselves are not scanned.</li>
+ * <li>The class calls a get(String) or get(Enum) method which returns a
+ * String (e.g., Translator.get()), and contains the key as a string
+ * literal, or refers to a static field which has the same type as the
+ * class which declares it (i.e., an enum constant).</li>
+ * </ul>
+ * Like Translator.get(Enum), enum constants are translated using their
+ * toString() value, which is not always their name.  The key enums are
+ * loaded by reflection when they are added.  Other enums found by the
+ * second rule are loaded (without being initialized, if they are not 
+ * enums) from the scanned classes, along with this class's class path,
+ * when the keys are needed; if one cannot be loaded, we fall back to the
+ * constant's name, which is what toString() returns by default.
+ *
+ * This errs on the side of keeping keys.  Every string literal in a class
+ * which calls get() is kept, so the list will also contain literals which
+ * are not keys at all (e.g., "x" from a switch or a log message); these
+ * are harmless, since they are not in the language files.  It cannot see
+ * keys which are built at runtime (e.g., with Enum.valueOf() or string 
+ * concatenation), so add those to the allow list yourself.
+ *
+ * To run from a build script:
+ *
+ * <code>
+ * java -cp ... ca.digitalcave.moss.i18n.KeyScanner -classes bin -classes lib/plugin.jar -enum com.example.FirstEnum -out keys.txt
+ * java -cp ... ca.digitalcave.moss.i18n.KeyScanner -classes bin -enum com.example.FirstEnum -trim path/to/languages path/to/trimmed
+ * </code>
+ *
+ * @author agent
+ *
+ */
+public class KeyScanner {
+
+	private static final String GET_STRING = "(Ljava/lang/String;)Ljava/lang/String;";
+	private static final String GET_ENUM = "(Ljava/lang/Enum;)Ljava/lang/String;";
+
+	//Internal class name to the keys (toString() values) of each constant name
+	private final Map<String, Map<String, String>> keyEnums = new HashMap<String, Map<String, String>>();
+	private final Set<String> usedKeys = new TreeSet<String>();
+	//Internal class name to the names of constants referred to by classes which call get()
+	private final Map<String, Set<String>> enumReferences = new HashMap<String, Set<String>>();
+	private final List<URL> classPath = new LinkedList<URL>();
+
+	public KeyScanner() {
+		for (Keys key : Keys.values()) {
+			usedKeys.add(key.toString());
+		}
+	}
+
+	/**
+	 * Adds a key enum.  Any reference to one of its constants counts as a
+	 * use of that constant's key, i.e. its toString() value.
+	 * @param className The fully qualified class name, e.g. com.example.FirstEnum
+	 * @throws ClassNotFoundException If the class is not on the class path
+	 */
+	public void addKeyEnum(String className) throws ClassNotFoundException {
+		addKeyEnum(Class.forName(className));
+	}
+
+	/**
+	 * Adds a key enum.  Any reference to one of its constants counts as a
+	 * use of that constant's key, i.e. its toString() value.
+	 * @param enumClass
+	 */
+	public void addKeyEnum(Class<?> enumClass){
+		if (!enumClass.isEnum())
+			throw new IllegalArgumentException(enumClass.getName() + " is not an enum");
+		keyEnums.put(enumClass.getName().replace('.', '/'), getKeys(enumClass));
+	}
+
+	private static Map<String, String> getKeys(Class<?> enumClass){
+		Map<String, String> keys = new HashMap<String, String>();
+		for (Object constant : enumClass.getEnumConstants()) {
+			keys.put(((Enum<?>) constant).name(), constant.toString());
+		}
+		return keys;
+	}
+
+	/**
+	 * Adds keys which should always be kept, e.g. keys built at runtime.
+	 * @param keys
+	 */
+	public void addKeys(String... keys){
+		for (String key : keys) {
+			usedKeys.add(key);
+		}
+	}
+
+	/**
+	 * @return The keys which are used, sorted.
+	 */
+	public Set<String> getUsedKeys() {
+		Set<String> keys = new TreeSet<String>(usedKeys);
+		if (!enumReferences.isEmpty()){
+			ClassLoader loader = new URLClassLoader(classPath.toArray(new URL[classPath.size()]), KeyScanner.class.getClassLoader());
+			for (Map.Entry<String, Set<String>> entry : enumReferences.entrySet()) {
+				Map<String, String> constants = getKeys(loader, entry.getKey());
+				for (String name : entry.getValue()) {
+					if (constants == null)
+						keys.add(name);
+					else if (constants.containsKey(name))
+						keys.add(constants.get(name));
+				}
+			}
+		}
+		return Collections.unmodifiableSet(keys);
+	}
+
+	/**
+	 * Returns the keys of the given enum, an empty map if the class is not
+	 * an enum, or null if it cannot be loaded.
+	 */
+	private static Map<String, String> getKeys(ClassLoader loader, String internalName){
+		try {
+			Class<?> c = Class.forName(internalName.replace('/', '.'), false, loader);
+			if (!c.isEnum())
+				return Collections.emptyMap();
+			return getKeys(c);
+		}
+		catch (Throwable t){
+			return null;
+		}
+	}
+
+	/**
+	 * Scans the given directory (recursively), jar file, or class file.
+	 * @param file
+	 * @throws IOException
+	 */
+	public void scan(File file) throws IOException {
+		if (file.isDirectory() || file.getName().endsWith(".jar") || file.getName().endsWith(".zip"))
+			classPath.add(file.toURI().toURL());
+		scanFile(file);
+	}
+
+	private void scanFile(File file) throws IOException {
+		if (file.isDirectory()){
+			File[] children = file.listFiles();
+			if (children != null){
+				for (File child : children) {
+					scanFile(child);
+				}
+			}
+		}
+		else if (file.getName().endsWith(".jar") || file.getName().endsWith(".zip")){
+			JarFile jar = new JarFile(file);
+			try {
+				for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements(); ) {
+					JarEntry entry = entries.nextElement();
+					if (entry.getName().endsWith(".class")){
+						InputStream is = jar.getInputStream(entry);
+						try {
+							scan(is);
+						}
+						finally {
+							is.close();
+						}
+					}
+				}
+			}
+			finally {
+				jar.close();
+			}
+		}
+		else if (file.getName().endsWith(".class")){
+			InputStream is = new BufferedInputStream(new FileInputStream(file));
+			try {
+				scan(is);
+			}
+			finally {
+				is.close();
+			}
+		}
+	}
+
+	/**
+	 * Scans a single class file.
+	 * @param is
+	 * @throws IOException If the stream is not a valid class file
+	 */
+	public void scan(InputStream is) throws IOException {
+		DataInputStream in = new DataInputStream(is);
+		if (in.readInt() != 0xCAFEBABE)
+			throw new IOException("Not a class file");
+		in.readUnsignedShort();		//Minor version
+		in.readUnsignedShort();		//Major version
+
+		int count = in.readUnsignedShort();
+		int[] tags = new int[count];
+		String[] utf8 = new String[count];
+		int[] first = new int[count];
+		int[] second = new int[count];
+
+		for (int i = 1; i < count; i++) {
+			tags[i] = in.readUnsignedByte();
+			switch (tags[i]) {
+			case 1:		//Utf8
+				utf8[i] = in.readUTF();
+				break;
+			case 7:		//Class
+			case 8:		//String
+			case 16:	//MethodType
+			case 19:	//Module
+			case 20:	//Package
+				first[i] = in.readUnsignedShort();
+				break;
+			case 15:	//MethodHandle
+				in.readUnsignedByte();
+				first[i] = in.readUnsignedShort();
+				break;
+			case 9:		//Fieldref
+			case 10:	//Methodref
+			case 11:	//InterfaceMethodref
+			case 12:	//NameAndType
+			case 17:	//Dynamic
+			case 18:	//InvokeDynamic
+				first[i] = in.readUnsignedShort();
+				second[i] = in.readUnsignedShort();
+				break;
+			case 3:		//Integer
+			case 4:		//Float
+				in.readInt();
+				break;
+			case 5:		//Long
+			case 6:		//Double
+				in.readLong();
+				i++;	//These take two slots
+				break;
+			default:
+				throw new IOException("Unknown constant pool tag " + tags[i]);
+			}
+		}
+
+		in.readUnsignedShort();		//Access flags
+		String className = utf8[first[in.readUnsignedShort()]];
+		if (keyEnums.containsKey(className))
+			return;
+
+		boolean callsGet = false;
+		List<String> strings = new LinkedList<String>();
+		List<String[]> enumConstants = new LinkedList<String[]>();
+
+		for (int i = 1; i < count; i++) {
+			if (tags[i] == 8){
+				if (isPossibleKey(utf8[first[i]]))
+					strings.add(utf8[first[i]]);
+			}
+			else if (tags[i] == 10 || tags[i] == 11 || tags[i] == 9){
+				String owner = utf8[first[first[i]]];
+				String name = utf8[first[second[i]]];
+				String descriptor = utf8[second[second[i]]];
+
+				if (tags[i] != 9){
+					if ("get".equals(name) && (GET_STRING.equals(descriptor) || GET_ENUM.equals(descriptor)))
+						callsGet = true;
+				}
+				else if (keyEnums.containsKey(owner)){
+					String key = keyEnums.get(owner).get(name);
+					if (key != null)
+						usedKeys.add(key);
+				}
+				else if (descriptor.equals("L" + owner + ";")){
+					enumConstants.add(new String[]{owner, name});
+				}
+			}
+		}
+
+		if (callsGet){
+			usedKeys.addAll(strings);
+			for (String[] constant : enumConstants) {
+				Set<String> names = enumReferences.get(constant[0]);
+				if (names == null){
+					names = new HashSet<String>();
+					enumReferences.put(constant[0], names);
+				}
+				names.add(constant[1]);
+			}
+		}
+	}
+
+	/**
+	 * Keys cannot be empty, or contain line breaks or other control
+	 * characters (which also rules out string concatenation recipes).
+	 */
+	private static boolean isPossibleKey(String s){
+		if (s.length() == 0)
+			return false;
+		for (int i = 0; i < s.length(); i++) {
+			if (s.charAt(i) < ' ')
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Writes the used keys to the given file, one per line, in UTF-8.  The 
+	 * file can be read back with readKeys().
+	 * @param file
+	 * @throws IOException
+	 */
+	public void writeKeys(File file) throws IOException {
+		Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+		try {
+			for (String key : getUsedKeys()) {
+				out.write(key);
+				out.write('\n');
+			}
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Reads a list of keys, as written by writeKeys().  The result can be
+	 * passed to Translator.setKeyFilter().
+	 * @param is
+	 * @return
+	 * @throws IOException
+	 */
+	public static Set<String> readKeys(InputStream is) throws IOException {
+		Set<String> keys = new HashSet<String>();
+		BufferedReader in = new BufferedReader(new InputStreamReader(is, "UTF-8"));
+		String line;
+		while ((line = in.readLine()) != null){
+			if (line.length() > 0)
+				keys.add(line);
+		}
+		return keys;
+	}
+
+	/**
+	 * Writes a copy of each language file in the source directory to the
+	 * target directory, containing only the used keys.
+	 * @param sourceDirectory
+	 * @param targetDirectory
+	 * @param translationSuffix The suffix of the translation files, including the period if applicable.
+	 * @return The number of keys removed, across all languages.
+	 * @throws IOException
+	 */
+	public int trim(File sourceDirectory, File targetDirectory, String translationSuffix) throws IOException {
+		File[] files = sourceDirectory.listFiles();
+		if (files == null)
+			throw new IOException("Could not list " + sourceDirectory.getAbsolutePath());
+		if (!targetDirectory.exists())
+			targetDirectory.mkdirs();
+
+		Set<String> keys = getUsedKeys();
+		int removed = 0;
+		for (File file : files) {
+			if (!file.isFile() || !file.getName().endsWith(translationSuffix))
+				continue;
+
+			Properties translations = new Properties();
+			InputStream is = new BufferedInputStream(new FileInputStream(file));
+			try {
+				translations.load(is);
+			}
+			finally {
+				is.close();
+			}
+
+			int size = translations.size();
+			translations.keySet().retainAll(keys);
+			removed += size - translations.size();
+
+			OutputStream os = new BufferedOutputStream(new FileOutputStream(new File(targetDirectory, file.getName())));
+			try {
+				translations.store(os, "Trimmed by KeyScanner");
+			}
+			finally {
+				os.close();
+			}
+		}
+		return removed;
+	}
+
+	public static void main(String[] args) throws Exception {
+		KeyScanner scanner = new KeyScanner();
+		List<File> classes = new LinkedList<File>();
+		List<String> enums = new LinkedList<String>();
+		String suffix = ".lang";
+		File out = null;
+		File trimSource = null;
+		File trimTarget = null;
+
+		for (int i = 0; i < args.length; i++) {
+			if ("-classes".equals(args[i]) && i + 1 < args.length)
+				classes.add(new File(args[++i]));
+			else if ("-enum".equals(args[i]) && i + 1 < args.length)
+				enums.add(args[++i]);
+			else if ("-key".equals(args[i]) && i + 1 < args.length)
+				scanner.addKeys(args[++i]);
+			else if ("-suffix".equals(args[i]) && i + 1 < args.length)
+				suffix = args[++i];
+			else if ("-out".equals(args[i]) && i + 1 < args.length)
+				out = new File(args[++i]);
+			else if ("-trim".equals(args[i]) && i + 2 < args.length){
+				trimSource = new File(args[++i]);
+				trimTarget = new File(args[++i]);
+			}
+			else {
+				System.err.println("Unknown argument " + args[i]);
+				classes.clear();
+				break;
+			}
+		}
+
+		if (classes.isEmpty() || (out == null && trimSource == null)){
+			System.err.println("Usage: KeyScanner -classes <dir|jar>... [-enum <class>]... [-key <key>]... [-suffix .lang] [-out <file>] [-trim <languageDirectory> <targetDirectory>]");
+			System.exit(2);
+		}
+
+		//The key enums are usually in the scanned classes, so we load them from there
+		List<URL> urls = new LinkedList<URL>();
+		for (File file : classes) {
+			urls.add(file.toURI().toURL());
+		}
+		ClassLoader loader = new URLClassLoader(urls.toArray(new URL[urls.size()]), KeyScanner.class.getClassLoader());
+		for (String className : enums) {
+			Class<?> c = Class.forName(className, true, loader);
+			if (!c.isEnum()){
+				System.err.println(className + " is not an enum");
+				System.exit(2);
+			}
+			scanner.addKeyEnum(c);
+		}
+
+		for (File file : classes) {
+			scanner.scan(file);
+		}
+
+		System.out.println("Found " + scanner.getUsedKeys().size() + " used keys");
+		if (out != null)
+			scanner.writeKeys(out);
+		if (trimSource != null)
+			System.out.println("Removed " + scanner.trim(trimSource, trimTarget, suffix) + " unused translations");
+	}
+}
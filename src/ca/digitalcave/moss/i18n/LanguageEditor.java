@@ -8,7 +8,11 @@ import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.GridLayout;
+import java.awt.RenderingHints;
 import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -16,6 +20,7 @@ import java.awt.event.KeyEvent;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -27,8 +32,8 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.swing.ButtonGroup;
-import javax.swing.DefaultListCellRenderer;
 import javax.swing.JButton;
+import javax.swing.JComponent;
 import javax.swing.JFileChooser;
 import javax.swing.JList;
 import javax.swing.JOptionPane;
@@ -36,6 +41,7 @@ import javax.swing.JPanel;
 import javax.swing.JRadioButton;
 import javax.swing.JScrollPane;
 import javax.swing.KeyStroke;
+import javax.swing.ListCellRenderer;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 import javax.swing.filechooser.FileFilter;
@@ -69,11 +75,13 @@ import ca.digitalcave.moss.swing.model.BackedListModel;
  * <code>
  * try {
  * 		LanguageEditor editor = new LanguageEditor(".lang");
+ * 		editor.beginBatch();
  * 		editor.loadKeys((Enum[]) FirstEnum.values());
  * 		editor.loadKeys((Enum[]) SecondEnum.values());
  * 		...
  * 		editor.loadLanguages(File pathToLanguages, "English", "Espanol", ...);
  * 		...
+ * 		editor.commitBatch();
  * 		editor.openWindow();
  * }
  * catch (WindowOpenException woe){}
@@ -81,6 +89,9 @@ import ca.digitalcave.moss.swing.model.BackedListModel;
  * You cannot load more keys or languages once you have opened the window (well, you 
  * probably could, but I don't know what would happen, so don't try it).
  * 
+ * The beginBatch() and commitBatch() calls are optional, but make loading much 
+ * faster when there are many keys or languages.
+ * 
  * Once you start the language editor, you will see a list of keys along the left side.
  * Click on each one in turn, and enter the translation in the correct language's text
  * area.  It saves to memory automatically when you click on a new key.  Once you are 
@@ -127,6 +138,8 @@ public class LanguageEditor extends MossDocumentFrame {
 	private static final LanguageEditorDocument document = new LanguageEditorDocument();
 
 	private String selectedFilterLanguage;
+	private int batchDepth = 0;
+	private boolean initialized = false;
 
 	public LanguageEditor() {
 		this(".lang", null);
@@ -252,31 +265,7 @@ public class LanguageEditor extends MossDocumentFrame {
 			translatorPanel.add(panel);
 		}
 
-		keyList.setCellRenderer(new DefaultListCellRenderer(){
-			public static final long serialVersionUID = 0;
-
-			@Override
-			public Component getListCellRendererComponent(JList list, Object value, int row, boolean arg3, boolean arg4) {
-				super.getListCellRendererComponent(list, value, row, arg3, arg4);
-
-				String key = (String) value;
-				String missingLanguages = "";
-				String symbol = "\u25c9";
-				for (String language : LanguageEditor.this.languageSet) {
-					//If the translation is not set, we mark it as this color
-					if (LanguageEditor.this.translators.get(language).get(key).equals(key))
-						missingLanguages += "<font color='" + languageColor.get(language) + "'>" + symbol + "</font>";
-					else
-						missingLanguages += "<font color='white'>" + symbol + "</font>";
-				}
-				missingLanguages += "<font color='white'>" + symbol + "</font>";
-				if (!enumStrings.contains(key))
-					value = "<font color='red'>" + value + "</font>";
-				this.setText("<html>" + missingLanguages + value + "</html>");
-
-				return this;
-			}
-		});
+		keyList.setCellRenderer(new KeyListCellRenderer(languages));
 		keyList.addListSelectionListener(new ListSelectionListener(){
 			public void valueChanged(ListSelectionEvent e) {
 				if (!e.getValueIsAdjusting()){
@@ -290,6 +279,11 @@ public class LanguageEditor extends MossDocumentFrame {
 		});
 
 		backingList.updateList();
+		filter.updateFilteredList();
+		keyListModel.updateList();
+
+		updatePrototypeCellValue();
+		initialized = true;
 
 		this.setTitle("Language Editor");
 		this.setLayout(new BorderLayout());
@@ -357,10 +351,67 @@ public class LanguageEditor extends MossDocumentFrame {
 		return true;
 	}
 
+	/**
+	 * Starts a batch of loadKeys() and loadLanguages() calls.  Until the 
+	 * matching commitBatch() call, loaded keys are only collected; the key
+	 * list is then rebuilt once for the whole batch, instead of once per
+	 * call.  Batches may be nested; only the outermost commit rebuilds.
+	 */
+	public void beginBatch(){
+		batchDepth++;
+	}
+
+	/**
+	 * Ends a batch started with beginBatch(), merging all of the keys which
+	 * were loaded into the key list in a single pass, and updating the 
+	 * window (if it is open) with a single change event.
+	 */
+	public void commitBatch(){
+		if (batchDepth == 0)
+			throw new IllegalStateException("commitBatch() called without beginBatch()");
+		if (--batchDepth > 0)
+			return;
+
+		enumStringsList.updateList();
+		translationStringsList.updateList();
+		if (initialized){
+			backingList.updateList();
+			filter.updateFilteredList();
+			keyListModel.updateList();
+			updatePrototypeCellValue();
+		}
+	}
+
+	/**
+	 * Gives the key list a prototype, so that it does not need to measure
+	 * every row.  We use the key which is widest in the list's font; the 
+	 * key with the most characters is not always the widest, and wider keys
+	 * would be clipped.
+	 */
+	@SuppressWarnings("unchecked")
+	private void updatePrototypeCellValue(){
+		FontMetrics fm = keyList.getFontMetrics(keyList.getFont());
+		String prototype = "";
+		int prototypeWidth = 0;
+		for (String key : backingList) {
+			int width = fm.stringWidth(key);
+			if (width > prototypeWidth){
+				prototype = key;
+				prototypeWidth = width;
+			}
+		}
+		keyList.setPrototypeCellValue(prototype);
+	}
+
+	private void keysChanged(ListSet<String> list){
+		if (batchDepth == 0)
+			list.updateList();
+	}
+
 	public void loadKeys(Enum<?>... keys){
 		enumStrings.addAll(new EnumList(keys));
 
-		enumStringsList.updateList();
+		keysChanged(enumStringsList);
 	}
 
 	public void loadKeys(String... keys){
@@ -368,7 +419,7 @@ public class LanguageEditor extends MossDocumentFrame {
 			enumStrings.add(string);
 		}
 
-		enumStringsList.updateList();
+		keysChanged(enumStringsList);
 	}
 
 	public void loadLanguages(String resourcePath, String... languages) {
@@ -386,9 +437,9 @@ public class LanguageEditor extends MossDocumentFrame {
 			for (Object string : t.getTranslations().keySet()) {
 				translationStrings.add(string.toString());				
 			}
-
-			translationStringsList.updateList();
 		}
+
+		keysChanged(translationStringsList);
 	}
 
 	public void loadLanguages(String resourcePath, File jarFile, String... languages) {
@@ -406,9 +457,9 @@ public class LanguageEditor extends MossDocumentFrame {
 			for (Object string : t.getTranslations().keySet()) {
 				translationStrings.add(string.toString());				
 			}
-
-			translationStringsList.updateList();
 		}
+
+		keysChanged(translationStringsList);
 	}
 
 	public void loadLanguages(File languageDirectory, String... languages) {
@@ -426,9 +477,9 @@ public class LanguageEditor extends MossDocumentFrame {
 			for (Object string : t.getTranslations().keySet()) {
 				translationStrings.add(string.toString());				
 			}
-
-			translationStringsList.updateList();
 		}
+
+		keysChanged(translationStringsList);
 	}
 
 	//	/**
@@ -643,6 +694,91 @@ public class LanguageEditor extends MossDocumentFrame {
 		}
 	}
 
+	/**
+	 * Paints the key list rows directly, rather than using HTML labels.  
+	 * Swing has to parse HTML to measure each row, which takes a very long
+	 * time for a large number of keys.  This renderer has a fixed height, 
+	 * and is used along with a prototype cell value, so that only the 
+	 * visible rows are ever rendered.
+	 */
+	@SuppressWarnings("rawtypes")
+	private class KeyListCellRenderer extends JComponent implements ListCellRenderer {
+		public static final long serialVersionUID = 0;
+
+		private static final int PADDING = 2;
+
+		private final String[] languages;
+		private final Color[] colors;
+		private final boolean[] missing;
+
+		private String key = "";
+		private boolean enumKey;
+		private boolean selected;
+
+		public KeyListCellRenderer(List<String> languages) {
+			this.languages = languages.toArray(new String[languages.size()]);
+			this.colors = new Color[this.languages.length];
+			this.missing = new boolean[this.languages.length];
+			for (int i = 0; i < this.languages.length; i++) {
+				colors[i] = Color.decode(languageColor.get(this.languages[i]));
+			}
+			setOpaque(true);
+		}
+
+		public Component getListCellRendererComponent(JList list, Object value, int row, boolean isSelected, boolean cellHasFocus) {
+			key = (String) value;
+			selected = isSelected;
+			enumKey = enumStrings.contains(key);
+
+			//If the translation is not set, we mark it with the language's color
+			for (int i = 0; i < languages.length; i++) {
+				missing[i] = translators.get(languages[i]).get(key).equals(key);
+			}
+
+			setFont(list.getFont());
+			setBackground(isSelected ? list.getSelectionBackground() : list.getBackground());
+			setForeground(isSelected ? list.getSelectionForeground() : list.getForeground());
+			return this;
+		}
+
+		@Override
+		public Dimension getPreferredSize() {
+			FontMetrics fm = getFontMetrics(getFont());
+			int dot = fm.getAscent();
+			return new Dimension(
+					PADDING + (languages.length + 1) * dot + fm.stringWidth(key) + PADDING, 
+					fm.getHeight() + PADDING * 2);
+		}
+
+		@Override
+		protected void paintComponent(Graphics g) {
+			g.setColor(getBackground());
+			g.fillRect(0, 0, getWidth(), getHeight());
+
+			FontMetrics fm = g.getFontMetrics(getFont());
+			int dot = fm.getAscent();
+			int x = PADDING;
+			int y = (getHeight() - dot) / 2;
+
+			if (g instanceof Graphics2D)
+				((Graphics2D) g).setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+			for (int i = 0; i < languages.length; i++) {
+				if (missing[i]){
+					g.setColor(colors[i]);
+					g.fillOval(x + 1, y + 1, dot - 2, dot - 2);
+				}
+				x += dot;
+			}
+			x += dot;
+
+			//Keys which are from the translation, but not an enum, are marked in red.
+			g.setColor(enumKey || selected ? getForeground() : Color.RED);
+			g.setFont(getFont());
+			g.drawString(key, x, (getHeight() - fm.getHeight()) / 2 + fm.getAscent());
+		}
+	}
+
 	private class ColorChooser {
 		private final String[] colors = {
 				"#0000FF",
@@ -705,15 +841,39 @@ public class LanguageEditor extends MossDocumentFrame {
 		}
 	}
 
+	/**
+	 * The filtered list is linked, so getting a row by index means walking 
+	 * the list.  We copy it into an array once per change, so that painting
+	 * the visible rows does not depend on how far down the list they are.
+	 */
 	private class StringBackedListModel extends BackedListModel<String> {
 		public final static long serialVersionUID = 0;
 
+		private List<String> rows = null;
+
 		public StringBackedListModel(List<String> listModel) {
 			super(listModel);
 		}
 
+		@Override
+		public Object getElementAt(int index) {
+			return getRows().get(index);
+		}
+
+		@Override
+		public int getSize() {
+			return getRows().size();
+		}
+
 		public void updateList(){
+			rows = null;
 			fireContentsChanged(this, -1, -1);
 		}
+
+		private List<String> getRows(){
+			if (rows == null)
+				rows = new ArrayList<String>(listModel);
+			return rows;
+		}
 	}
 }
@@ -0,0 +1,244 @@
+/*
+ * Created on Oct 19, 2026 by agent
+ */
+package ca.digitalcave.moss.i18n;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves the list of languages to load for a request, given an HTTP
+ * Accept-Language header, a Locale, or one of our language names (e.g.,
+ * Espanol_(MX)).  The list which is returned can be passed directly to
+ * the loadLanguages() methods in Translator.
+ *
+ * Resolved lists are cached, so that repeated requests with the same
+ * header do not need to parse anything or allocate new lists.  Headers
+ * are first looked up exactly as given; on a miss, the header is 
+ * normalized (lower-cased, with whitespace removed), and looked up again,
+ * so that headers which differ only in case or spacing (e.g. 
+ * "es-MX,es;q=0.9" and "es-mx, es;q=0.9") share one negotiated result.
+ * Both caches are bounded; once one fills up, it is cleared and starts
+ * over.  Clearing the exact cache only costs a normalization per header,
+ * since the normalized cache still holds the negotiated lists.
+ *
+ * Before negotiating, you must tell the negotiator which languages are
+ * available, by calling addLanguage() for each language file you have.
+ * For instance:
+ *
+ * <code>
+ * LanguageNegotiator negotiator = new LanguageNegotiator();
+ * negotiator.addLanguage(Locale.ENGLISH, "English");
+ * negotiator.addLanguage(new Locale("es"), "Espanol");
+ * negotiator.addLanguage(new Locale("es", "MX"), "Espanol_(MX)");
+ * ...
+ * translator.loadLanguages(path, negotiator.getLanguageList(request.getHeader("Accept-Language")));
+ * </code>
+ *
+ * This class is thread safe.
+ *
+ * @author agent
+ *
+ */
+public class LanguageNegotiator {
+
+	public static final int DEFAULT_CACHE_SIZE = 1000;
+
+	private final Map<String, String> languages = new ConcurrentHashMap<String, String>();
+	private final ConcurrentMap<String, List<String>> headerCache = new ConcurrentHashMap<String, List<String>>();
+	private final ConcurrentMap<String, List<String>> normalizedHeaderCache = new ConcurrentHashMap<String, List<String>>();
+	private final ConcurrentMap<Locale, List<String>> localeCache = new ConcurrentHashMap<Locale, List<String>>();
+	private final String defaultLanguage;
+	private final int maxCacheSize;
+
+	public LanguageNegotiator() {
+		this("English", DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Creates a new negotiator.
+	 * @param defaultLanguage The language which is always loaded first, and which is used when nothing else matches.
+	 * @param maxCacheSize The maximum number of headers / locales to remember, in each cache.
+	 */
+	public LanguageNegotiator(String defaultLanguage, int maxCacheSize) {
+		this.defaultLanguage = defaultLanguage;
+		this.maxCacheSize = maxCacheSize;
+	}
+
+	/**
+	 * Registers a language file as being available for the given locale.  Only
+	 * the language and country of the locale are considered.
+	 * @param locale The locale which the language file is written for
+	 * @param language The name of the language file, without suffix (e.g., Espanol_(MX))
+	 */
+	public void addLanguage(Locale locale, String language){
+		languages.put(getTag(locale.getLanguage(), locale.getCountry()), language);
+
+		//Anything we resolved before may now resolve differently
+		headerCache.clear();
+		normalizedHeaderCache.clear();
+		localeCache.clear();
+	}
+
+	/**
+	 * Returns the list of languages to load for the given Accept-Language
+	 * header value, e.g. "es-MX,es;q=0.9,en;q=0.8".  If no language matches,
+	 * only the default language is returned.  The returned list is shared,
+	 * and cannot be modified.
+	 * @param acceptLanguage The header value; may be null
+	 * @return
+	 */
+	public List<String> getLanguageList(String acceptLanguage){
+		if (acceptLanguage == null)
+			acceptLanguage = "";
+
+		List<String> ret = headerCache.get(acceptLanguage);
+		if (ret == null){
+			String normalized = normalize(acceptLanguage);
+			ret = normalizedHeaderCache.get(normalized);
+			if (ret == null){
+				ret = negotiate(normalized);
+				cache(normalizedHeaderCache, normalized, ret);
+			}
+			cache(headerCache, acceptLanguage, ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * Lower-cases the header and removes all whitespace.  Neither changes
+	 * the result of negotiating, since tags are case insensitive.
+	 */
+	private static String normalize(String acceptLanguage){
+		StringBuilder sb = new StringBuilder(acceptLanguage.length());
+		for (int i = 0; i < acceptLanguage.length(); i++) {
+			char c = acceptLanguage.charAt(i);
+			if (!Character.isWhitespace(c))
+				sb.append(Character.toLowerCase(c));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the list of languages to load for the given Locale.  The
+	 * returned list is shared, and cannot be modified.
+	 * @param locale
+	 * @return
+	 */
+	public List<String> getLanguageList(Locale locale){
+		if (locale == null)
+			return getLanguageList((String) null);
+
+		List<String> ret = localeCache.get(locale);
+		if (ret == null){
+			ret = getLanguageChain(resolve(locale.getLanguage(), locale.getCountry()));
+			cache(localeCache, locale, ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the list of languages to load for the given language name,
+	 * including the default language and the base language for localized
+	 * names.  For instance, "Espanol_(MX)" gives "English", "Espanol",
+	 * "Espanol_(MX)".  Duplicates are removed.  The list cannot be modified.
+	 * @param translation The localized language
+	 * @return
+	 */
+	public List<String> getLanguageChain(String translation){
+		List<String> chain = new ArrayList<String>(3);
+		chain.add(defaultLanguage);
+
+		if (translation != null){
+			String base = getBaseLanguage(translation);
+			if (!chain.contains(base))
+				chain.add(base);
+			if (!chain.contains(translation))
+				chain.add(translation);
+		}
+
+		return Collections.unmodifiableList(chain);
+	}
+
+	/**
+	 * Returns the base language for the given language name, by stripping
+	 * the localization (e.g., Espanol_(MX) becomes Espanol).  This is
+	 * equivalent to removing the pattern "_\(.*\)$", without the cost of
+	 * compiling a regular expression each time.
+	 * @param translation
+	 * @return
+	 */
+	static String getBaseLanguage(String translation){
+		if (!translation.endsWith(")"))
+			return translation;
+		int index = translation.indexOf("_(");
+		if (index < 0)
+			return translation;
+		return translation.substring(0, index);
+	}
+
+	private List<String> negotiate(String acceptLanguage){
+		String best = null;
+		float bestQuality = 0f;
+
+		for (String range : acceptLanguage.split(",")) {
+			String tag = range;
+			float quality = 1f;
+
+			int parameters = range.indexOf(';');
+			if (parameters >= 0){
+				tag = range.substring(0, parameters);
+				String q = range.substring(parameters + 1).trim();
+				if (q.startsWith("q=")){
+					try {
+						quality = Float.parseFloat(q.substring(2));
+					}
+					catch (NumberFormatException nfe){
+						quality = 0f;
+					}
+				}
+			}
+
+			//Earlier ranges win ties, so we need to be strictly better
+			if (quality <= bestQuality)
+				continue;
+
+			tag = tag.trim().replace('_', '-');
+			int dash = tag.indexOf('-');
+			String language = resolve(dash < 0 ? tag : tag.substring(0, dash), dash < 0 ? "" : tag.substring(dash + 1));
+			if (language != null){
+				best = language;
+				bestQuality = quality;
+			}
+		}
+
+		return getLanguageChain(best);
+	}
+
+	private String resolve(String language, String country){
+		if (language.length() == 0 || "*".equals(language))
+			return null;
+
+		String ret = languages.get(getTag(language, country));
+		if (ret == null && country.length() > 0)
+			ret = languages.get(getTag(language, ""));
+		return ret;
+	}
+
+	private <K> void cache(ConcurrentMap<K, List<String>> cache, K key, List<String> value){
+		if (cache.size() >= maxCacheSize)
+			cache.clear();
+		cache.putIfAbsent(key, value);
+	}
+
+	private static String getTag(String language, String country){
+		if (country == null || country.length() == 0)
+			return language.toLowerCase(Locale.ENGLISH);
+		return (language + "-" + country).toLowerCase(Locale.ENGLISH);
+	}
+}
@@ -0,0 +1,217 @@
+/*
+ * Created on Oct 19, 2026 by agent
+ */
+package ca.digitalcave.moss.i18n;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * An estimate of the memory used by the translations in a Translator,
+ * as returned by Translator.getMemoryUsage().  This is computed from the
+ * number and length of the keys and values as they are loaded, rather
+ * than by walking the heap, so it is cheap to ask for at runtime.
+ *
+ * Heap sizes are estimated for a 64 bit JVM with compressed references:
+ * each String costs 24 bytes plus its char array (16 bytes of header plus
+ * two bytes per character, rounded up to 8), and each Properties entry
+ * costs 32 bytes plus 4 bytes per table slot.  For catalogs which have
+ * been moved off heap, the key and value bytes are the bytes used in the
+ * direct buffers, and the index bytes are the size of the buffer index.
+ *
+ * @author agent
+ *
+ */
+public class MemoryUsage {
+
+	private static final int STRING_BYTES = 24;
+	private static final int ARRAY_HEADER_BYTES = 16;
+	private static final int ENTRY_BYTES = 32;
+	private static final int REFERENCE_BYTES = 4;
+
+	private final int keyCount;
+	private final long keyBytes;
+	private final long valueBytes;
+	private final long indexBytes;
+	private final boolean offHeap;
+	private final List<Layer> layers;
+
+	MemoryUsage(int keyCount, long keyBytes, long valueBytes, long indexBytes, boolean offHeap, List<Layer> layers) {
+		this.keyCount = keyCount;
+		this.keyBytes = keyBytes;
+		this.valueBytes = valueBytes;
+		this.indexBytes = indexBytes;
+		this.offHeap = offHeap;
+		this.layers = (layers == null ? Collections.<Layer>emptyList() : Collections.unmodifiableList(layers));
+	}
+
+	/**
+	 * Returns a copy of this usage, with the given layers.
+	 */
+	MemoryUsage withLayers(List<Layer> layers){
+		return new MemoryUsage(keyCount, keyBytes, valueBytes, indexBytes, offHeap, layers);
+	}
+
+	/**
+	 * @return The number of keys currently translated.
+	 */
+	public int getKeyCount() {
+		return keyCount;
+	}
+
+	/**
+	 * @return The bytes retained by the keys.
+	 */
+	public long getKeyBytes() {
+		return keyBytes;
+	}
+
+	/**
+	 * @return The bytes retained by the values.
+	 */
+	public long getValueBytes() {
+		return valueBytes;
+	}
+
+	/**
+	 * @return The bytes used by the lookup structure (table and entries),
+	 * not including the keys and values themselves.
+	 */
+	public long getIndexBytes() {
+		return indexBytes;
+	}
+
+	/**
+	 * @return The total of the key, value and index bytes.
+	 */
+	public long getTotalBytes() {
+		return keyBytes + valueBytes + indexBytes;
+	}
+
+	/**
+	 * @return true if the translations are stored outside of the heap.
+	 */
+	public boolean isOffHeap() {
+		return offHeap;
+	}
+
+	/**
+	 * @return The most recent load of each language, in the order in which they were last loaded.
+	 */
+	public List<Layer> getLayers() {
+		return layers;
+	}
+
+	@Override
+	public String toString() {
+		return "MemoryUsage [keys=" + keyCount + ", keyBytes=" + keyBytes + ", valueBytes=" + valueBytes
+				+ ", indexBytes=" + indexBytes + ", offHeap=" + offHeap + ", layers=" + layers + "]";
+	}
+
+	static long getStringBytes(String s){
+		return STRING_BYTES + align(ARRAY_HEADER_BYTES + 2L * s.length());
+	}
+
+	static long getTableBytes(int size){
+		return (long) size * ENTRY_BYTES + (long) (size / 0.75f + 1) * REFERENCE_BYTES;
+	}
+
+	private static long align(long bytes){
+		return (bytes + 7) & ~7L;
+	}
+
+	/**
+	 * Computes the usage of a single language file, which is about to be
+	 * loaded on top of the given translations.
+	 * @param language The name of the language
+	 * @param layer The contents of the language file
+	 * @param loaded The translations loaded so far
+	 * @return
+	 */
+	static Layer getLayer(String language, Properties layer, Properties loaded){
+		long keyBytes = 0;
+		long valueBytes = 0;
+		long sharedBytes = 0;
+		int overridden = 0;
+		for (Map.Entry<Object, Object> entry : layer.entrySet()) {
+			long bytes = getStringBytes(entry.getKey().toString());
+			keyBytes += bytes;
+			valueBytes += getStringBytes(entry.getValue().toString());
+			if (loaded.containsKey(entry.getKey())){
+				sharedBytes += bytes;
+				overridden++;
+			}
+		}
+		return new Layer(language, layer.size(), overridden, keyBytes, valueBytes, sharedBytes);
+	}
+
+	/**
+	 * The memory used by a single language file, at the time that it was loaded.
+	 */
+	public static class Layer {
+		private final String language;
+		private final int keyCount;
+		private final int overriddenCount;
+		private final long keyBytes;
+		private final long valueBytes;
+		private final long sharedBytes;
+
+		Layer(String language, int keyCount, int overriddenCount, long keyBytes, long valueBytes, long sharedBytes) {
+			this.language = language;
+			this.keyCount = keyCount;
+			this.overriddenCount = overriddenCount;
+			this.keyBytes = keyBytes;
+			this.valueBytes = valueBytes;
+			this.sharedBytes = sharedBytes;
+		}
+
+		public String getLanguage() {
+			return language;
+		}
+
+		/**
+		 * @return The number of keys in the language file.
+		 */
+		public int getKeyCount() {
+			return keyCount;
+		}
+
+		/**
+		 * @return The number of keys which replaced a value from an earlier language.
+		 */
+		public int getOverriddenCount() {
+			return overriddenCount;
+		}
+
+		/**
+		 * @return The bytes of the keys in the language file.
+		 */
+		public long getKeyBytes() {
+			return keyBytes;
+		}
+
+		/**
+		 * @return The bytes of the values in the language file.
+		 */
+		public long getValueBytes() {
+			return valueBytes;
+		}
+
+		/**
+		 * @return The bytes of keys which were already loaded by an earlier
+		 * language.  The earlier key is kept, so these bytes are not retained
+		 * a second time.
+		 */
+		public long getSharedBytes() {
+			return sharedBytes;
+		}
+
+		@Override
+		public String toString() {
+			return language + " [keys=" + keyCount + ", overridden=" + overriddenCount + ", keyBytes=" + keyBytes
+					+ ", valueBytes=" + valueBytes + ", sharedBytes=" + sharedBytes + "]";
+		}
+	}
+}
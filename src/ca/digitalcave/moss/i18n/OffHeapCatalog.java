@@ -0,0 +1,177 @@
+/*
+ * Created on Oct 19, 2026 by agent
+ */
+package ca.digitalcave.moss.i18n;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * A read only catalog which keeps all keys and values in direct buffers,
+ * outside of the Java heap.  This is useful for very large sets of
+ * translations, where keeping millions of small String and Hashtable
+ * entry objects on the heap makes garbage collection expensive.  The heap
+ * cost of this catalog is a few objects, regardless of its size.
+ *
+ * Each entry is stored in the data buffer as the key length, the value
+ * length, and then the UTF-16 characters of the key and value.  Keys are
+ * found using an open addressing (linear probing) hash table, which is
+ * also stored in a direct buffer, and which holds the hash code of each
+ * key along with the offset of its entry.  Keys are compared directly
+ * against the buffer, so a lookup only creates the String for the value
+ * (or nothing at all, when using appendTo()).
+ *
+ * @author agent
+ *
+ */
+class OffHeapCatalog implements Catalog {
+
+	private static final int ENTRY_HEADER_BYTES = 8;
+
+	private final ByteBuffer data;
+	private final IntBuffer index;
+	private final int mask;
+	private final int size;
+	private final long keyBytes;
+
+	public OffHeapCatalog(Properties source) {
+		Set<String> keys = source.stringPropertyNames();
+
+		long dataBytes = 0;
+		for (String key : keys) {
+			dataBytes += ENTRY_HEADER_BYTES + 2L * (key.length() + source.getProperty(key).length());
+		}
+
+		int capacity = 2;
+		while (capacity < keys.size() * 2)
+			capacity <<= 1;
+
+		if (dataBytes > Integer.MAX_VALUE || capacity > Integer.MAX_VALUE / 8)
+			throw new IllegalArgumentException("Too many translations to store off heap (" + keys.size() + " keys, " + dataBytes + " bytes)");
+
+		this.size = keys.size();
+		this.mask = capacity - 1;
+		this.data = ByteBuffer.allocateDirect((int) dataBytes);
+		this.index = ByteBuffer.allocateDirect(capacity * 8).asIntBuffer();
+
+		int offset = 0;
+		long keyBytes = 0;
+		for (String key : keys) {
+			String value = source.getProperty(key);
+			keyBytes += ENTRY_HEADER_BYTES + 2L * key.length();
+			data.putInt(offset, key.length());
+			data.putInt(offset + 4, value.length());
+			int position = offset + ENTRY_HEADER_BYTES;
+			for (int i = 0; i < key.length(); i++, position += 2)
+				data.putChar(position, key.charAt(i));
+			for (int i = 0; i < value.length(); i++, position += 2)
+				data.putChar(position, value.charAt(i));
+
+			int hash = key.hashCode();
+			int slot = spread(hash) & mask;
+			while (index.get(slot * 2 + 1) != 0)
+				slot = (slot + 1) & mask;
+			index.put(slot * 2, hash);
+			index.put(slot * 2 + 1, offset + 1);		//0 marks an empty slot
+
+			offset = position;
+		}
+		this.keyBytes = keyBytes;
+	}
+
+	public String get(String key) {
+		int offset = find(key);
+		if (offset < 0)
+			return null;
+
+		return readString(offset + ENTRY_HEADER_BYTES + data.getInt(offset) * 2, data.getInt(offset + 4));
+	}
+
+	/**
+	 * Appends the value for the given key to the given output, without
+	 * creating a String for it.
+	 * @param key
+	 * @param out
+	 * @return true if the key was found, false otherwise (in which case nothing is appended).
+	 * @throws IOException
+	 */
+	public boolean appendTo(String key, Appendable out) throws IOException {
+		int offset = find(key);
+		if (offset < 0)
+			return false;
+
+		int keyLength = data.getInt(offset);
+		int valueLength = data.getInt(offset + 4);
+		int position = offset + ENTRY_HEADER_BYTES + keyLength * 2;
+		for (int i = 0; i < valueLength; i++, position += 2)
+			out.append(data.getChar(position));
+		return true;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public MemoryUsage getMemoryUsage() {
+		return new MemoryUsage(size, keyBytes, data.capacity() - keyBytes, index.capacity() * 4L, true, null);
+	}
+
+	public Properties toProperties() {
+		Properties properties = new Properties();
+		int offset = 0;
+		while (offset < data.capacity()){
+			int keyLength = data.getInt(offset);
+			int valueLength = data.getInt(offset + 4);
+			int position = offset + ENTRY_HEADER_BYTES;
+			String key = readString(position, keyLength);
+			position += keyLength * 2;
+			properties.setProperty(key, readString(position, valueLength));
+			offset = position + valueLength * 2;
+		}
+		return properties;
+	}
+
+	/**
+	 * Returns the offset of the entry for the given key, or -1 if it is not found.
+	 */
+	private int find(String key){
+		int hash = key.hashCode();
+		for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+			int offset = index.get(slot * 2 + 1) - 1;
+			if (offset < 0)
+				return -1;
+			if (index.get(slot * 2) == hash && keyEquals(offset, key))
+				return offset;
+		}
+	}
+
+	private boolean keyEquals(int offset, String key){
+		if (data.getInt(offset) != key.length())
+			return false;
+		int position = offset + ENTRY_HEADER_BYTES;
+		for (int i = 0; i < key.length(); i++, position += 2){
+			if (data.getChar(position) != key.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	private String readString(int position, int length){
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++, position += 2)
+			chars[i] = data.getChar(position);
+		return new String(chars);
+	}
+
+	/**
+	 * Spreads the hash bits, since String hash codes of similar keys
+	 * often differ only in the low bits.
+	 */
+	private static int spread(int hash){
+		hash ^= (hash >>> 20) ^ (hash >>> 12);
+		return hash ^ (hash >>> 7) ^ (hash >>> 4);
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * Created on Oct 19, 2026 by agent
+ */
+package ca.digitalcave.moss.i18n;
+
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * A catalog which layers a set of changes on top of another catalog,
+ * without copying it.  This lets us publish changes (e.g., from a 
+ * CatalogPatch) in a single step, at a cost which depends only on the 
+ * number of changes.  The changes are kept in a HashTrie, so applying
+ * more changes to an overlay shares the existing changes rather than 
+ * copying them; the size and memory usage are updated incrementally, 
+ * with one lookup in the base catalog per changed key.  A lookup costs
+ * one walk of the trie, and at most one lookup in the base catalog.
+ *
+ * Overlays are never stacked; applying changes to an overlay creates a
+ * new overlay over the same base.  Once the changed keys grow to an
+ * eighth of the base, they are merged into a new PropertiesCatalog.  The
+ * merge copies the whole catalog, but since it only happens after that
+ * many distinct keys have changed, its cost per changed key is constant
+ * when averaged over the patches since the last merge.
+ *
+ * @author agent
+ *
+ */
+class OverlayCatalog implements Catalog {
+
+	//Marks a key which has been removed.  Compared by identity.
+	private static final String REMOVED = new String("");
+
+	//These are only changed by apply(), before the catalog is published.
+	private final Catalog base;
+	private HashTrie overrides = HashTrie.EMPTY;
+	private int size;
+	private long overrideKeyBytes = 0;
+	private long overrideValueBytes = 0;
+
+	private OverlayCatalog(Catalog base) {
+		this.base = base;
+		this.size = base.size();
+	}
+
+	/**
+	 * Returns a catalog with the given changes applied to the given catalog.
+	 * @param catalog The catalog to change; it is not modified.
+	 * @param puts Keys to add or change
+	 * @param removals Keys to remove
+	 * @return
+	 */
+	static Catalog apply(Catalog catalog, Map<String, String> puts, Iterable<String> removals){
+		OverlayCatalog next;
+		if (catalog instanceof OverlayCatalog){
+			OverlayCatalog previous = (OverlayCatalog) catalog;
+			next = new OverlayCatalog(previous.base);
+			next.overrides = previous.overrides;
+			next.size = previous.size;
+			next.overrideKeyBytes = previous.overrideKeyBytes;
+			next.overrideValueBytes = previous.overrideValueBytes;
+		}
+		else {
+			next = new OverlayCatalog(catalog);
+		}
+
+		for (Map.Entry<String, String> entry : puts.entrySet()) {
+			next.change(entry.getKey(), entry.getValue());
+		}
+		for (String key : removals) {
+			next.change(key, REMOVED);
+		}
+
+		if (next.overrides.size() > next.base.size() / 8 + 16)
+			return new PropertiesCatalog(next.toProperties());
+
+		return next;
+	}
+
+	private void change(String key, String value){
+		String previous = overrides.get(key);
+		boolean wasPresent = (previous == null ? base.get(key) != null : previous != REMOVED);
+		boolean present = value != REMOVED;
+		if (present && !wasPresent)
+			size++;
+		else if (!present && wasPresent)
+			size--;
+
+		if (previous == null)
+			overrideKeyBytes += MemoryUsage.getStringBytes(key);
+		else if (previous != REMOVED)
+			overrideValueBytes -= MemoryUsage.getStringBytes(previous);
+		if (present)
+			overrideValueBytes += MemoryUsage.getStringBytes(value);
+
+		overrides = overrides.put(key, value);
+	}
+
+	public String get(String key) {
+		String ret = overrides.get(key);
+		if (ret == null)
+			return base.get(key);
+		if (ret == REMOVED)
+			return null;
+		return ret;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public Properties toProperties() {
+		Properties properties = base.toProperties();
+		for (Map.Entry<String, String> entry : overrides.toMap().entrySet()) {
+			if (entry.getValue() == REMOVED)
+				properties.remove(entry.getKey());
+			else
+				properties.setProperty(entry.getKey(), entry.getValue());
+		}
+		return properties;
+	}
+
+	public MemoryUsage getMemoryUsage() {
+		MemoryUsage usage = base.getMemoryUsage();
+		return new MemoryUsage(
+				size,
+				usage.getKeyBytes() + overrideKeyBytes,
+				usage.getValueBytes() + overrideValueBytes,
+				usage.getIndexBytes() + MemoryUsage.getTableBytes(overrides.size()),
+				usage.isOffHeap(),
+				null);
+	}
+}
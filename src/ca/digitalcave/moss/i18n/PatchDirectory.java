@@ -0,0 +1,135 @@
+/*
+ * Created on Oct 19, 2026 by agent
+ */
+package ca.digitalcave.moss.i18n;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+/**
+ * A shared directory of CatalogPatch files.  One process publishes
+ * patches to the directory, and any number of processes call update()
+ * periodically to apply the patches they have not seen yet.  Since
+ * patches are applied in version order, every process ends up with the
+ * same translations.
+ *
+ * Patches are stored as [language].[version].patch.  They are written to
+ * a temporary file first and then renamed, so that readers never see a
+ * partially written patch.  Since a rename silently replaces an existing
+ * file on most systems, a publisher first reserves the version by 
+ * creating [language].[version].lock, which only one process can do;
+ * if two processes publish the same version, the second one fails 
+ * rather than replacing the first one's patch.  The lock is removed once
+ * the patch is in place.  If a publisher dies while holding it, the lock
+ * must be deleted by hand before that version can be published.
+ *
+ * @author agent
+ *
+ */
+public class PatchDirectory {
+
+	private static final String SUFFIX = ".patch";
+	private static final String LOCK_SUFFIX = ".lock";
+
+	private final File directory;
+
+	public PatchDirectory(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Writes the given patch to the directory.
+	 * @param patch
+	 * @throws IOException If the patch could not be written, or if a patch with the same version already exists or is being published.
+	 */
+	public void publish(CatalogPatch patch) throws IOException {
+		if (!directory.exists())
+			directory.mkdirs();
+
+		String name = patch.getLanguage() + "." + patch.getVersion();
+		File target = new File(directory, name + SUFFIX);
+		File lock = new File(directory, name + LOCK_SUFFIX);
+		if (!lock.createNewFile())
+			throw new IOException("Patch " + target.getName() + " is already being published");
+
+		try {
+			//Checked after taking the lock, since the previous holder renames before unlocking
+			if (target.exists())
+				throw new IOException("Patch " + target.getName() + " already exists");
+
+			File temp = File.createTempFile("patch.", ".tmp", directory);
+			OutputStream os = new BufferedOutputStream(new FileOutputStream(temp));
+			try {
+				patch.write(os);
+			}
+			finally {
+				os.close();
+			}
+
+			if (!temp.renameTo(target)){
+				temp.delete();
+				throw new IOException("Could not rename " + temp.getName() + " to " + target.getName());
+			}
+		}
+		finally {
+			lock.delete();
+		}
+	}
+
+	/**
+	 * Applies all patches for the given language which are newer than the
+	 * translator's current patch version, in order.  Patches which do not
+	 * follow on from the translator's version are skipped.
+	 * @param translator The translator to update
+	 * @param language The language which the translator has loaded
+	 * @return The number of patches applied
+	 * @throws IOException If a patch could not be read
+	 * @throws IllegalArgumentException If the translator is already 
+	 * patched for a different language
+	 */
+	public int update(Translator translator, String language) throws IOException {
+		String prefix = language + ".";
+		Map<Long, File> patches = new TreeMap<Long, File>();
+
+		String[] names = directory.list();
+		if (names == null)
+			return 0;
+		for (String name : names) {
+			if (!name.startsWith(prefix) || !name.endsWith(SUFFIX))
+				continue;
+			try {
+				long version = Long.parseLong(name.substring(prefix.length(), name.length() - SUFFIX.length()));
+				if (version > translator.getPatchVersion())
+					patches.put(version, new File(directory, name));
+			}
+			catch (NumberFormatException nfe){}
+		}
+
+		int applied = 0;
+		for (File file : patches.values()) {
+			CatalogPatch patch;
+			InputStream is = new BufferedInputStream(new FileInputStream(file));
+			try {
+				patch = CatalogPatch.read(is);
+			}
+			finally {
+				is.close();
+			}
+
+			if (translator.applyPatch(patch))
+				applied++;
+			else
+				Logger.getLogger(this.getClass().getName()).finest("Skipping " + patch + "; translator is at patch version " + translator.getPatchVersion());
+		}
+		return applied;
+	}
+}
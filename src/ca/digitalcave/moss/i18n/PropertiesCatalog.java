@@ -0,0 +1,81 @@
+/*
+ * Created on Oct 19, 2026 by agent
+ */
+package ca.digitalcave.moss.i18n;
+
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The default catalog, stored in a Properties object on the heap.  This 
+ * is the only catalog which can be changed in place (which is done by 
+ * the Language Editor, one key at a time).  Changes must be made using
+ * put() and remove(), so that the memory usage stays up to date.
+ * 
+ * @author agent
+ *
+ */
+class PropertiesCatalog implements Catalog {
+	
+	private final Properties properties;
+	
+	private volatile long keyBytes = 0;
+	private volatile long valueBytes = 0;
+	
+	public PropertiesCatalog(Properties properties) {
+		this.properties = properties;
+		
+		long keyBytes = 0;
+		long valueBytes = 0;
+		for (Map.Entry<Object, Object> entry : properties.entrySet()) {
+			keyBytes += MemoryUsage.getStringBytes(entry.getKey().toString());
+			valueBytes += MemoryUsage.getStringBytes(entry.getValue().toString());
+		}
+		this.keyBytes = keyBytes;
+		this.valueBytes = valueBytes;
+	}
+	
+	/**
+	 * Sets the value for the given key.  Not thread safe with respect to
+	 * other writers; the caller must synchronize.
+	 */
+	void put(String key, String value){
+		Object old = properties.setProperty(key, value);
+		if (old == null)
+			keyBytes += MemoryUsage.getStringBytes(key);
+		else
+			valueBytes -= MemoryUsage.getStringBytes(old.toString());
+		valueBytes += MemoryUsage.getStringBytes(value);
+	}
+	
+	/**
+	 * Removes the value for the given key.  Not thread safe with respect to
+	 * other writers; the caller must synchronize.
+	 */
+	void remove(String key){
+		Object old = properties.remove(key);
+		if (old != null){
+			keyBytes -= MemoryUsage.getStringBytes(key);
+			valueBytes -= MemoryUsage.getStringBytes(old.toString());
+		}
+	}
+	
+	public String get(String key) {
+		return properties.getProperty(key);
+	}
+	
+	public int size() {
+		return properties.size();
+	}
+	
+	public Properties toProperties() {
+		Properties copy = new Properties();
+		copy.putAll(properties);
+		return copy;
+	}
+	
+	public MemoryUsage getMemoryUsage() {
+		int size = properties.size();
+		return new MemoryUsage(size, keyBytes, valueBytes, MemoryUsage.getTableBytes(size), false, null);
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Created on Oct 19, 2026 by agent
+ */
+package ca.digitalcave.moss.i18n;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps a TranslatorOverlay for each tenant, over a single shared 
+ * Translator.  Tenants without any overrides all share one overlay, so
+ * they cost nothing.  Changes replace the tenant's overlay with a new 
+ * copy, so readers never need to lock.
+ * 
+ * This class is thread safe.
+ * 
+ * @author agent
+ *
+ */
+public class TenantOverlays {
+	
+	private final TranslatorOverlay empty;
+	private final ConcurrentMap<String, TranslatorOverlay> overlays = new ConcurrentHashMap<String, TranslatorOverlay>();
+	
+	public TenantOverlays(Translator base) {
+		this.empty = new TranslatorOverlay(base);
+	}
+	
+	/**
+	 * Returns the overlay for the given tenant.  The overlay does not change
+	 * when the tenant's overrides are changed; call this again to see them.
+	 * @param tenant
+	 * @return
+	 */
+	public TranslatorOverlay get(String tenant){
+		TranslatorOverlay ret = overlays.get(tenant);
+		return (ret == null ? empty : ret);
+	}
+	
+	/**
+	 * Overrides a single term for the given tenant.
+	 * @param tenant
+	 * @param key
+	 * @param value
+	 */
+	public void setTranslation(String tenant, String key, String value){
+		while (true){
+			TranslatorOverlay current = overlays.get(tenant);
+			if (current == null){
+				if (overlays.putIfAbsent(tenant, empty.with(key, value)) == null)
+					return;
+			}
+			else if (overlays.replace(tenant, current, current.with(key, value)))
+				return;
+		}
+	}
+	
+	/**
+	 * Overrides several terms for the given tenant at once.
+	 * @param tenant
+	 * @param values
+	 */
+	public void setTranslations(String tenant, Map<String, String> values){
+		while (true){
+			TranslatorOverlay current = overlays.get(tenant);
+			if (current == null){
+				if (overlays.putIfAbsent(tenant, empty.with(values)) == null)
+					return;
+			}
+			else if (overlays.replace(tenant, current, current.with(values)))
+				return;
+		}
+	}
+	
+	/**
+	 * Removes the given tenant's override for a single term, if it has one.
+	 * @param tenant
+	 * @param key
+	 */
+	public void removeTranslation(String tenant, String key){
+		while (true){
+			TranslatorOverlay current = overlays.get(tenant);
+			if (current == null)
+				return;
+			
+			TranslatorOverlay changed = current.without(key);
+			if (changed == current)
+				return;
+			
+			boolean replaced = (changed.getOverrides().isEmpty() 
+					? overlays.remove(tenant, current) 
+					: overlays.replace(tenant, current, changed));
+			if (replaced)
+				return;
+		}
+	}
+	
+	/**
+	 * Removes all overrides for the given tenant.
+	 * @param tenant
+	 */
+	public void clear(String tenant){
+		overlays.remove(tenant);
+	}
+	
+	/**
+	 * @return The number of tenants which have at least one override.
+	 */
+	public int size(){
+		return overlays.size();
+	}
+}
@@ -8,21 +8,48 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 import ca.digitalcave.moss.common.ClassLoaderFunctions;
 
 
+/**
+ * Loads and looks up translations.
+ * 
+ * This class is safe to use from multiple threads.  Loading languages 
+ * works on a copy of the translations, which replaces the current 
+ * translations once all the requested languages are loaded; a call to 
+ * get() will never see a partially loaded set of languages.  Each change
+ * increments the version returned by getVersion().
+ */
 public class Translator {
 	
-	protected final Properties translations = new Properties();
+	private volatile Catalog catalog = new PropertiesCatalog(new Properties());
 	
 	private final String translationSuffix;
 	
+	private final Object writeLock = new Object();
+	private volatile long version = 0;
+	private volatile long patchVersion = 0;
+	//The language of the first patch applied, or null
+	private volatile String patchLanguage = null;
+	//The most recent load of each language, in the order they were loaded
+	private volatile Map<String, MemoryUsage.Layer> layers = Collections.emptyMap();
+	private volatile Set<String> keyFilter = null;
+	private volatile EscapeCache escapeCache = null;
+	
 	public Translator(String translationSuffix) {
 		this.translationSuffix = translationSuffix;
 	}
@@ -43,18 +70,23 @@ public class Translator {
 	 * @param translationSuffix The suffix of the translation files, including the period if applicable.
 	 */
 	public void loadLanguages(String resourcePath, List<String> languages) {
-		for (String language : languages) {
-			String path = resourcePath + "/" + language + translationSuffix;
-			Logger.getLogger(this.getClass().getName()).finest("Loading translation from " + path);
-			try {
-				translations.load(Translator.class.getResourceAsStream(path));
+		synchronized (writeLock) {
+			Properties loaded = copyTranslations();
+			Map<String, MemoryUsage.Layer> loadedLayers = new LinkedHashMap<String, MemoryUsage.Layer>(layers);
+			for (String language : languages) {
+				String path = resourcePath + "/" + language + translationSuffix;
+				Logger.getLogger(this.getClass().getName()).finest("Loading translation from " + path);
+				try {
+					loadLayer(loaded, loadedLayers, language, Translator.class.getResourceAsStream(path));
+				}
+				catch (Throwable t){
+					Logger.getLogger(this.getClass().getName()).finest("Could not load " + language);
+				}
 			}
-			catch (Throwable t){
-				Logger.getLogger(this.getClass().getName()).finest("Could not load " + language);
-			}
-		}
 
-		setLocale();
+			layers = Collections.unmodifiableMap(loadedLayers);
+			publish(loaded);
+		}
 	}
 
 	/**
@@ -74,23 +106,28 @@ public class Translator {
 	 * @param translationSuffix The suffix of the translation files, including the period if applicable.
 	 */
 	public void loadLanguages(File jarFile, String resourcePath, List<String> languages) {
-		for (String language : languages) {
-			String path = resourcePath + "/" + language + translationSuffix;
-			Logger.getLogger(this.getClass().getName()).finest("Loading translation from " + path + " in " + jarFile.getName());
-			try {
-				InputStream is = ClassLoaderFunctions.getResourceAsStreamFromJar(jarFile, path);
-				if (is != null)
-					translations.load(is);
-				else
-					Logger.getLogger(this.getClass().getName()).finest("Failed to load translation " + path + " in " + jarFile.getName() + "; could not open stream.");
-			}
-			catch (IOException ioe){
-				Logger.getLogger(this.getClass().getName()).finest("Could not load " + language + " from " + jarFile.getName() + ":/" + path);
+		synchronized (writeLock) {
+			Properties loaded = copyTranslations();
+			Map<String, MemoryUsage.Layer> loadedLayers = new LinkedHashMap<String, MemoryUsage.Layer>(layers);
+			for (String language : languages) {
+				String path = resourcePath + "/" + language + translationSuffix;
+				Logger.getLogger(this.getClass().getName()).finest("Loading translation from " + path + " in " + jarFile.getName());
+				try {
+					InputStream is = ClassLoaderFunctions.getResourceAsStreamFromJar(jarFile, path);
+					if (is != null)
+						loadLayer(loaded, loadedLayers, language, is);
+					else
+						Logger.getLogger(this.getClass().getName()).finest("Failed to load translation " + path + " in " + jarFile.getName() + "; could not open stream.");
+				}
+				catch (IOException ioe){
+					Logger.getLogger(this.getClass().getName()).finest("Could not load " + language + " from " + jarFile.getName() + ":/" + path);
+				}
+
 			}
 
+			layers = Collections.unmodifiableMap(loadedLayers);
+			publish(loaded);
 		}
-
-		setLocale();		
 	}
 
 	/**
@@ -123,34 +160,226 @@ public class Translator {
 		if (languageDirectory == null)
 			return;
 		
+		synchronized (writeLock) {
+			Properties loaded = copyTranslations();
+			Map<String, MemoryUsage.Layer> loadedLayers = new LinkedHashMap<String, MemoryUsage.Layer>(layers);
+			for (String language : languages) {
+				File languageFile = new File(languageDirectory.getAbsolutePath() + File.separator + language + translationSuffix);
+				try {
+					loadLayer(loaded, loadedLayers, language, new BufferedInputStream(new FileInputStream(languageFile)));
+				}
+				catch (IOException ioe){
+					Logger.getLogger(this.getClass().getName()).finest("Could not load " + language + " from " + languageFile.getAbsolutePath());
+				}
+			}
+
+			layers = Collections.unmodifiableMap(loadedLayers);
+			publish(loaded);
+		}
+	}
+	
+	/**
+	 * Loads languages in the same way as loadLanguages(File, String, List),
+	 * using the given snapshot file to make warm restarts faster.  If the
+	 * snapshot was written from the same jar file (same size and
+	 * modification time), languages, and key filter, the translations are
+	 * restored from it without parsing any language files.  Otherwise, the 
+	 * languages are loaded as usual, and the snapshot is rewritten.
+	 * 
+	 * The snapshot is only used if nothing has been loaded or changed yet;
+	 * after that, this is the same as loadLanguages(File, String, List).
+	 * 
+	 * @param jarFile The jar file to load the translations from.
+	 * @param resourcePath The path to the languages, inside of the current .jar file.  Should be absolute (i.e., starting with a slash).
+	 * @param languages A list of languages to load, in order of index.
+	 * @param snapshot The snapshot file to restore from, and write to.
+	 */
+	public void loadLanguages(final File jarFile, final String resourcePath, final List<String> languages, File snapshot) {
+		List<String> names = new ArrayList<String>(languages);
+		names.add(resourcePath);
+		names.add(translationSuffix);
+		long fingerprint = CatalogSnapshot.getFingerprint(Collections.singletonList(jarFile), names, keyFilter);
+		loadLanguages(snapshot, fingerprint, new Runnable(){
+			public void run() {
+				loadLanguages(jarFile, resourcePath, languages);
+			}
+		});
+	}
+
+	/**
+	 * Loads languages in the same way as loadLanguages(File, List), using
+	 * the given snapshot file to make warm restarts faster.  If the 
+	 * snapshot was written from the same language files (same sizes and
+	 * modification times) and key filter, the translations are restored 
+	 * from it without parsing any language files.  Otherwise, the languages
+	 * are loaded as usual, and the snapshot is rewritten.
+	 * 
+	 * The snapshot is only used if nothing has been loaded or changed yet;
+	 * after that, this is the same as loadLanguages(File, List).
+	 * 
+	 * @param languageDirectory The path to the languages, on the current file system.
+	 * @param languages A list of languages to load, in order of index.
+	 * @param snapshot The snapshot file to restore from, and write to.
+	 */
+	public void loadLanguages(final File languageDirectory, final List<String> languages, File snapshot) {
+		File directory = languageDirectory;
+		if (directory != null && directory.isFile())
+			directory = directory.getParentFile();
+		if (directory == null){
+			loadLanguages(languageDirectory, languages);
+			return;
+		}
+
+		List<File> files = new ArrayList<File>();
 		for (String language : languages) {
-			File languageFile = new File(languageDirectory.getAbsolutePath() + File.separator + language + translationSuffix);
+			files.add(new File(directory.getAbsolutePath() + File.separator + language + translationSuffix));
+		}
+		long fingerprint = CatalogSnapshot.getFingerprint(files, languages, keyFilter);
+		loadLanguages(snapshot, fingerprint, new Runnable(){
+			public void run() {
+				loadLanguages(languageDirectory, languages);
+			}
+		});
+	}
+
+	/**
+	 * Restores the translations from the given snapshot if it matches the
+	 * fingerprint; otherwise runs the given load, and writes a new snapshot.
+	 * @param snapshot
+	 * @param fingerprint
+	 * @param load
+	 */
+	private void loadLanguages(File snapshot, long fingerprint, Runnable load){
+		synchronized (writeLock) {
+			if (version != 0){
+				load.run();
+				return;
+			}
+
+			CatalogSnapshot restored = CatalogSnapshot.read(snapshot, fingerprint);
+			if (restored != null){
+				Logger.getLogger(this.getClass().getName()).finest("Restored " + restored.translations.size() + " translations from " + snapshot);
+				Map<String, MemoryUsage.Layer> restoredLayers = new LinkedHashMap<String, MemoryUsage.Layer>();
+				for (MemoryUsage.Layer layer : restored.layers) {
+					restoredLayers.remove(layer.getLanguage());
+					restoredLayers.put(layer.getLanguage(), layer);
+				}
+				layers = Collections.unmodifiableMap(restoredLayers);
+				patchVersion = restored.patchVersion;
+				patchLanguage = restored.patchLanguage;
+				publish(restored.translations);
+				return;
+			}
+
+			load.run();
 			try {
-				translations.load(new BufferedInputStream(new FileInputStream(languageFile)));
+				new CatalogSnapshot(fingerprint, patchVersion, patchLanguage, new ArrayList<MemoryUsage.Layer>(layers.values()), copyTranslations()).write(snapshot);
 			}
 			catch (IOException ioe){
-				Logger.getLogger(this.getClass().getName()).finest("Could not load " + language + " from " + languageFile.getAbsolutePath());
+				Logger.getLogger(this.getClass().getName()).info("Could not write snapshot " + snapshot + ": " + ioe);
 			}
 		}
+	}
 
-		setLocale();
+	/**
+	 * Loads languages in the same way as loadLanguages(String, List), without 
+	 * blocking the caller.  The language files are read on the given I/O 
+	 * executor and parsed on the given compute executor; once all of them 
+	 * are parsed, they are published together, and the returned future 
+	 * completes with this Translator.
+	 * 
+	 * Unlike the blocking methods, errors reading or parsing a language 
+	 * file are not ignored; the future fails with the exception, and the
+	 * translations are left unchanged.  Languages which do not exist are 
+	 * not an error, and are reported to the listener.
+	 * 
+	 * Callers which must not block (e.g. on an event loop) can use the 
+	 * listener's loaded() and failed() methods to find out when the load
+	 * is finished, instead of calling get() on the future.
+	 * 
+	 * @param resourcePath The path to the languages, inside of the current .jar file.  Should be absolute (i.e., starting with a slash).
+	 * @param languages A list of languages to load, in order of index.
+	 * @param ioExecutor The executor used to read the language files
+	 * @param computeExecutor The executor used to parse the language files
+	 * @param listener Notified as each language is loaded, and when the load finishes or fails; may be null.
+	 * @return
+	 */
+	public Future<Translator> loadLanguagesAsync(final String resourcePath, List<String> languages, Executor ioExecutor, Executor computeExecutor, LoadListener listener) {
+		return startAsyncLoad(languages, new AsyncLoad.Source(){
+			public InputStream open(String language) throws IOException {
+				return Translator.class.getResourceAsStream(resourcePath + "/" + language + translationSuffix);
+			}
+		}, ioExecutor, computeExecutor, listener);
 	}
-	
+
+	/**
+	 * Loads languages in the same way as loadLanguages(File, String, List), 
+	 * without blocking the caller.  See loadLanguagesAsync(String, List, 
+	 * Executor, Executor, LoadListener) for details.
+	 * 
+	 * @param jarFile The jar file to load the translations from.
+	 * @param resourcePath The path to the languages, inside of the current .jar file.  Should be absolute (i.e., starting with a slash).
+	 * @param languages A list of languages to load, in order of index.
+	 * @param ioExecutor The executor used to read the language files
+	 * @param computeExecutor The executor used to parse the language files
+	 * @param listener Notified as each language is loaded, and when the load finishes or fails; may be null.
+	 * @return
+	 */
+	public Future<Translator> loadLanguagesAsync(final File jarFile, final String resourcePath, List<String> languages, Executor ioExecutor, Executor computeExecutor, LoadListener listener) {
+		return startAsyncLoad(languages, new AsyncLoad.Source(){
+			public InputStream open(String language) throws IOException {
+				return ClassLoaderFunctions.getResourceAsStreamFromJar(jarFile, resourcePath + "/" + language + translationSuffix);
+			}
+		}, ioExecutor, computeExecutor, listener);
+	}
+
+	/**
+	 * Loads languages in the same way as loadLanguages(File, List), without 
+	 * blocking the caller.  See loadLanguagesAsync(String, List, Executor, 
+	 * Executor, LoadListener) for details.
+	 * 
+	 * @param languageDirectory The path to the languages, on the current file system.
+	 * @param languages A list of languages to load, in order of index.
+	 * @param ioExecutor The executor used to read the language files
+	 * @param computeExecutor The executor used to parse the language files
+	 * @param listener Notified as each language is loaded, and when the load finishes or fails; may be null.
+	 * @return
+	 */
+	public Future<Translator> loadLanguagesAsync(final File languageDirectory, List<String> languages, Executor ioExecutor, Executor computeExecutor, LoadListener listener) {
+		return startAsyncLoad(languages, new AsyncLoad.Source(){
+			public InputStream open(String language) throws IOException {
+				File languageFile = new File(languageDirectory, language + translationSuffix);
+				if (!languageFile.isFile())
+					return null;
+				return new FileInputStream(languageFile);
+			}
+		}, ioExecutor, computeExecutor, listener);
+	}
+
+	private Future<Translator> startAsyncLoad(List<String> languages, AsyncLoad.Source source, Executor ioExecutor, Executor computeExecutor, LoadListener listener){
+		AsyncLoad load = new AsyncLoad(this, new ArrayList<String>(languages), source, ioExecutor, computeExecutor, listener);
+		load.start();
+		return load;
+	}
+
 	/**
 	 * Returns a list of languages to try to load, based on the given language.
 	 * This allows us to load partial translations and differences (dialects).
 	 * This list can be passed directly to the loadLanguages() method in Translator.
+	 * If you need to resolve languages for every request (e.g., from an 
+	 * Accept-Language header), use a LanguageNegotiator instead, which caches
+	 * the results.
 	 * @param translation The localized language
 	 * @return
 	 */
 	public List<String> getLanguageList(String translation){
-		List<String> languageList = new LinkedList<String>();
+		List<String> languageList = new ArrayList<String>(3);
 		
 		//English
 		languageList.add("English");
 		
 		//Base Language (e.g., Espanol)
-		languageList.add(translation.replaceAll("_\\(.*\\)$", ""));
+		languageList.add(LanguageNegotiator.getBaseLanguage(translation));
 
 		//Localized Language (e.g., Espanol_(MX))
 		languageList.add(translation);
@@ -159,6 +388,224 @@ public class Translator {
 	}
 
 
+	/**
+	 * Returns the current version of the translations.  This is incremented
+	 * each time languages are loaded or a translation is changed.
+	 * @return
+	 */
+	public long getVersion(){
+		return version;
+	}
+
+	/**
+	 * Limits the keys which are kept when loading languages to the given 
+	 * set, e.g. the keys found by KeyScanner.  Other keys in the language 
+	 * files are dropped as each file is loaded, so that they do not take
+	 * up memory.  The locale keys are always kept.  This does not affect
+	 * languages which have already been loaded.
+	 * @param keys The keys to keep, or null to keep all keys.
+	 */
+	public void setKeyFilter(Collection<String> keys){
+		if (keys == null){
+			keyFilter = null;
+			return;
+		}
+
+		Set<String> filter = new HashSet<String>(keys);
+		for (Keys key : Keys.values()) {
+			filter.add(key.toString());
+		}
+		keyFilter = filter;
+	}
+
+	/**
+	 * Returns the version of the last CatalogPatch applied with applyPatch(),
+	 * or 0 if no patches have been applied.  There is one patch version per
+	 * Translator, not one per language; see applyPatch().
+	 * @return
+	 */
+	public long getPatchVersion(){
+		return patchVersion;
+	}
+
+	/**
+	 * Returns the language of the patches applied with applyPatch(), or 
+	 * null if no patches have been applied.
+	 * @return
+	 */
+	public String getPatchLanguage(){
+		return patchLanguage;
+	}
+
+	/**
+	 * Applies the given patch on top of the currently loaded translations.
+	 * All of the changes in the patch become visible to readers at once, 
+	 * and the cost depends on the number of changed keys rather than the 
+	 * total number of translations, or the number of keys changed by 
+	 * earlier patches.  Once patches have changed an eighth of the keys,
+	 * they are merged into a full copy of the translations; averaged over
+	 * those patches, this is still a constant cost per changed key.
+	 * 
+	 * The patch is only applied if its base version matches the current
+	 * patch version; otherwise this method does nothing.  The patch version
+	 * is a single counter for the whole Translator, so a Translator can
+	 * only follow the patches of one language: the first patch applied
+	 * decides which, and patches for any other language are rejected.
+	 * @param patch
+	 * @return true if the patch was applied, false otherwise.
+	 * @throws IllegalArgumentException If the patch is for a different 
+	 * language than the patches already applied
+	 */
+	public boolean applyPatch(CatalogPatch patch){
+		synchronized (writeLock) {
+			if (patchLanguage != null && !patchLanguage.equals(patch.getLanguage()))
+				throw new IllegalArgumentException("Cannot apply " + patch + "; translator is patched for " + patchLanguage);
+			if (patch.getBaseVersion() != patchVersion)
+				return false;
+
+			publish(OverlayCatalog.apply(catalog, patch.getPuts(), patch.getRemovals()));
+			patchVersion = patch.getVersion();
+			patchLanguage = patch.getLanguage();
+			return true;
+		}
+	}
+
+	/**
+	 * Returns an estimate of the memory used by the translations, including
+	 * the size of each language as it was loaded.  This is kept up to date
+	 * as languages are loaded, so it is cheap to call.
+	 * 
+	 * There is one layer per language; reloading a language replaces its
+	 * layer, and moves it to the end of the list.  The layers describe the
+	 * language files as they were loaded, so they are not changed by 
+	 * applyPatch() or setTranslation() / removeTranslation(); those changes
+	 * are included in the totals (key count and bytes) instead.
+	 * @return
+	 */
+	public MemoryUsage getMemoryUsage(){
+		return catalog.getMemoryUsage().withLayers(new ArrayList<MemoryUsage.Layer>(layers.values()));
+	}
+
+	/**
+	 * Loads a single language file on top of the given translations, and 
+	 * records its memory usage.
+	 * @param loaded The translations loaded so far
+	 * @param loadedLayers The layers loaded so far, by language
+	 * @param language The name of the language being loaded
+	 * @param is The contents of the language file
+	 * @throws IOException
+	 */
+	private void loadLayer(Properties loaded, Map<String, MemoryUsage.Layer> loadedLayers, String language, InputStream is) throws IOException {
+		Properties layer = new Properties();
+		layer.load(is);
+		mergeLayer(loaded, loadedLayers, language, layer);
+	}
+
+	private void mergeLayer(Properties loaded, Map<String, MemoryUsage.Layer> loadedLayers, String language, Properties layer){
+		Set<String> filter = keyFilter;
+		if (filter != null)
+			layer.keySet().retainAll(filter);
+
+		//Replace any earlier load of the same language, and move it to the end
+		loadedLayers.remove(language);
+		loadedLayers.put(language, MemoryUsage.getLayer(language, layer, loaded));
+		loaded.putAll(layer);
+	}
+
+	/**
+	 * Merges the given, already parsed, languages on top of the current
+	 * translations, and publishes the result.  Used by AsyncLoad.
+	 * @param languages The names of the languages, in order of index
+	 * @param parsed The contents of each language, or null for languages which were not found
+	 */
+	void publishLayers(List<String> languages, Properties[] parsed){
+		synchronized (writeLock) {
+			Properties loaded = copyTranslations();
+			Map<String, MemoryUsage.Layer> loadedLayers = new LinkedHashMap<String, MemoryUsage.Layer>(layers);
+			for (int i = 0; i < parsed.length; i++) {
+				if (parsed[i] != null)
+					mergeLayer(loaded, loadedLayers, languages.get(i), parsed[i]);
+			}
+
+			layers = Collections.unmodifiableMap(loadedLayers);
+			publish(loaded);
+		}
+	}
+
+	/**
+	 * Returns a copy of the current translations, which can be modified
+	 * without affecting readers.  Must be called while holding writeLock.
+	 * @return
+	 */
+	private Properties copyTranslations(){
+		return catalog.toProperties();
+	}
+
+	/**
+	 * Moves the loaded translations out of the Java heap, into direct 
+	 * buffers.  This is intended for very large sets of translations, where
+	 * the number of objects on the heap makes garbage collection expensive;
+	 * call it once you have finished loading languages.  Lookups will then
+	 * create the returned String on each call (use appendTo() to avoid this).
+	 * 
+	 * Loading more languages or changing translations afterwards moves the
+	 * translations back onto the heap.
+	 */
+	public void moveOffHeap(){
+		synchronized (writeLock) {
+			publish(new OffHeapCatalog(catalog.toProperties()));
+		}
+	}
+
+	/**
+	 * Rebuilds the loaded translations into a read only index, using a 
+	 * minimal perfect hash.  This uses less memory than the default storage,
+	 * and lookups take a more predictable amount of time, since there are
+	 * no collisions.  Call it once you have finished loading languages, 
+	 * e.g. in a production server where the translations do not change
+	 * until the next deployment.
+	 * 
+	 * Loading more languages or changing translations afterwards switches 
+	 * back to the default storage.
+	 */
+	public void freeze(){
+		synchronized (writeLock) {
+			publish(new FrozenCatalog(catalog.toProperties()));
+		}
+	}
+
+	/**
+	 * Returns the PropertiesCatalog currently in use, replacing the catalog
+	 * with one if needed, so that it can be changed in place.  Must be 
+	 * called while holding writeLock.
+	 * @return
+	 */
+	private PropertiesCatalog getEditableCatalog(){
+		if (!(catalog instanceof PropertiesCatalog))
+			catalog = new PropertiesCatalog(catalog.toProperties());
+		return (PropertiesCatalog) catalog;
+	}
+
+	/**
+	 * Replaces the current translations with the given ones, in a single
+	 * step, and updates the locale.  Must be called while holding writeLock.
+	 * @param next
+	 */
+	private void publish(Properties next){
+		publish(new PropertiesCatalog(next));
+	}
+
+	/**
+	 * Replaces the current catalog with the given one, in a single step,
+	 * and updates the locale.  Must be called while holding writeLock.
+	 * @param next
+	 */
+	private void publish(Catalog next){
+		catalog = next;
+		version++;
+		setLocale();
+	}
+
 	/**
 	 * Sets the locale according to the translations loaded so far.
 	 */
@@ -183,7 +630,7 @@ public class Translator {
 		if (key == null){
 			return key;
 		}
-		String ret = translations.getProperty(key);
+		String ret = catalog.get(key);
 		if (ret == null)
 			return key;
 
@@ -196,18 +643,122 @@ public class Translator {
 	 * @return The translation in currently loaded language
 	 */
 	public String get(Enum<?> key){
-		String ret = translations.getProperty(key.toString());
+		String ret = catalog.get(key.toString());
 		if (ret == null)
 			return key.toString();
 		return ret;
 	}
+
+	/**
+	 * Returns the translation, escaped for use in HTML text or a quoted
+	 * attribute value.  The escaped value is computed once and cached until
+	 * the translations change.
+	 * @param key The key to translate
+	 * @return The escaped translation in currently loaded language
+	 */
+	public String getHtml(String key){
+		return getEscaped(key, Escaping.HTML);
+	}
+
+	/**
+	 * Returns the translation, escaped for use in HTML text or a quoted
+	 * attribute value.  The escaped value is computed once and cached until
+	 * the translations change.
+	 * @param key The key to translate
+	 * @return The escaped translation in currently loaded language
+	 */
+	public String getHtml(Enum<?> key){
+		return getEscaped(key.toString(), Escaping.HTML);
+	}
+
+	/**
+	 * Returns the translation, escaped for use inside a JavaScript string
+	 * literal.  The escaped value is computed once and cached until the 
+	 * translations change.
+	 * @param key The key to translate
+	 * @return The escaped translation in currently loaded language
+	 */
+	public String getJs(String key){
+		return getEscaped(key, Escaping.JS);
+	}
+
+	/**
+	 * Returns the translation, escaped for use inside a JavaScript string
+	 * literal.  The escaped value is computed once and cached until the 
+	 * translations change.
+	 * @param key The key to translate
+	 * @return The escaped translation in currently loaded language
+	 */
+	public String getJs(Enum<?> key){
+		return getEscaped(key.toString(), Escaping.JS);
+	}
+
+	/**
+	 * Returns the translation, percent encoded for use in a URL path 
+	 * segment or query parameter.  The escaped value is computed once and
+	 * cached until the translations change.
+	 * @param key The key to translate
+	 * @return The escaped translation in currently loaded language
+	 */
+	public String getUrl(String key){
+		return getEscaped(key, Escaping.URL);
+	}
+
+	/**
+	 * Returns the translation, percent encoded for use in a URL path 
+	 * segment or query parameter.  The escaped value is computed once and
+	 * cached until the translations change.
+	 * @param key The key to translate
+	 * @return The escaped translation in currently loaded language
+	 */
+	public String getUrl(Enum<?> key){
+		return getEscaped(key.toString(), Escaping.URL);
+	}
+
+	private String getEscaped(String key, Escaping escaping){
+		if (key == null)
+			return key;
+
+		//Read the version first; a change to the catalog always happens before its version changes.
+		long currentVersion = version;
+		EscapeCache cache = escapeCache;
+		if (cache == null || cache.version != currentVersion){
+			cache = new EscapeCache(catalog, currentVersion);
+			escapeCache = cache;
+		}
+		return cache.get(key, escaping);
+	}
+
+	/**
+	 * Appends the translation for the given key to the given output.  When
+	 * the translations have been moved off heap, this copies the value 
+	 * directly from the buffer without creating a String.
+	 * @param key The key to translate
+	 * @param out Where to write the translation in the currently loaded language
+	 * @throws IOException
+	 */
+	public void appendTo(String key, Appendable out) throws IOException {
+		Catalog c = catalog;
+		if (c instanceof OffHeapCatalog){
+			if (!((OffHeapCatalog) c).appendTo(key, out))
+				out.append(key);
+		}
+		else {
+			String ret = c.get(key);
+			out.append(ret == null ? key : ret);
+		}
+	}
 	
 	/**
 	 * Returns a copy of the properties backing file.  Used by the Language Editor.
+	 * 
+	 * This replaces the protected translations field which older versions 
+	 * exposed to subclasses.  Changes to the returned copy are not seen by
+	 * get(); use setTranslation() and removeTranslation() instead.
 	 * @return
 	 */
-	Properties getTranslations(){
-		return (Properties) translations.clone();
+	protected Properties getTranslations(){
+		return catalog.toProperties();
 	}
 	
 	/**
@@ -216,15 +767,50 @@ public class Translator {
 	 * @param key
 	 * @param value
 	 */
-	void setTranslation(String key, String value){
-		translations.setProperty(key, value);
+	protected void setTranslation(String key, String value){
+		synchronized (writeLock) {
+			getEditableCatalog().put(key, value);
+			version++;
+		}
 	}
 	
 	/**
 	 * Removes a value for the key, if it exists.  Used for the Language Editor.
 	 * @param key
 	 */
-	void removeTranslation(String key){
-		translations.remove(key);
+	protected void removeTranslation(String key){
+		synchronized (writeLock) {
+			getEditableCatalog().remove(key);
+			version++;
+		}
+	}
+
+	/**
+	 * Receives progress from loadLanguagesAsync().  Methods are called from 
+	 * the executor threads (or, for failed(), possibly from the thread 
+	 * which cancelled the load).  Exactly one of loaded() and failed() is
+	 * called for each load, after the future has completed.
+	 */
+	public interface LoadListener {
+		/**
+		 * Called when a language file has been read and parsed.
+		 */
+		public void languageLoaded(String language);
+
+		/**
+		 * Called when a language file does not exist.
+		 */
+		public void languageMissing(String language);
+
+		/**
+		 * Called when every language has been loaded and published.
+		 */
+		public void loaded(Translator translator);
+
+		/**
+		 * Called when the load fails or is cancelled; the translations
+		 * are not changed.
+		 */
+		public void failed(Throwable cause);
 	}
 }
@@ -0,0 +1,125 @@
+/*
+ * Created on Oct 19, 2026 by agent
+ */
+package ca.digitalcave.moss.i18n;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A small, immutable set of translations which override those of a shared
+ * Translator.  This is used when many users (e.g., customers of a hosted 
+ * application) each want to change a handful of terms, without giving 
+ * each of them a full copy of the translations.  The memory used depends 
+ * only on the number of overridden terms, and a lookup costs at most one 
+ * extra hash probe.
+ * 
+ * The base Translator is not copied, so languages loaded into it later are
+ * seen by all of its overlays.  Overlays cannot be changed; the with() and 
+ * without() methods return a new overlay, leaving this one untouched, so 
+ * overlays can be shared between threads freely.  See TenantOverlays for
+ * a way of keeping one overlay per tenant.
+ * 
+ * @author agent
+ *
+ */
+public class TranslatorOverlay {
+	
+	private final Translator base;
+	private final Map<String, String> overrides;
+	
+	/**
+	 * Creates an overlay without any overrides.
+	 * @param base The shared translations
+	 */
+	public TranslatorOverlay(Translator base) {
+		this(base, Collections.<String, String>emptyMap());
+	}
+	
+	private TranslatorOverlay(Translator base, Map<String, String> overrides) {
+		this.base = base;
+		this.overrides = overrides;
+	}
+	
+	/**
+	 * Returns the translation, based on the given string.
+	 * @param key The key to translate
+	 * @return The overridden translation if there is one, or the translation from the base Translator
+	 */
+	public String get(String key){
+		if (key == null)
+			return key;
+		String ret = overrides.get(key);
+		if (ret == null)
+			return base.get(key);
+		return ret;
+	}
+	
+	/**
+	 * Returns the translation, based on the given TranslateKey.
+	 * @param key The key to translate
+	 * @return The overridden translation if there is one, or the translation from the base Translator
+	 */
+	public String get(Enum<?> key){
+		return get(key.toString());
+	}
+	
+	/**
+	 * Returns a new overlay, with the given key overridden.
+	 * @param key
+	 * @param value
+	 * @return
+	 */
+	public TranslatorOverlay with(String key, String value){
+		Map<String, String> changed = copy(overrides.size() + 1);
+		changed.put(key, value);
+		return new TranslatorOverlay(base, Collections.unmodifiableMap(changed));
+	}
+	
+	/**
+	 * Returns a new overlay, with all of the given keys overridden.
+	 * @param values
+	 * @return
+	 */
+	public TranslatorOverlay with(Map<String, String> values){
+		Map<String, String> changed = copy(overrides.size() + values.size());
+		changed.putAll(values);
+		return new TranslatorOverlay(base, Collections.unmodifiableMap(changed));
+	}
+	
+	/**
+	 * Returns a new overlay, without an override for the given key.  If 
+	 * the key is not overridden, this overlay is returned.
+	 * @param key
+	 * @return
+	 */
+	public TranslatorOverlay without(String key){
+		if (!overrides.containsKey(key))
+			return this;
+		if (overrides.size() == 1)
+			return new TranslatorOverlay(base);
+		
+		Map<String, String> changed = copy(overrides.size());
+		changed.remove(key);
+		return new TranslatorOverlay(base, Collections.unmodifiableMap(changed));
+	}
+	
+	/**
+	 * @return The overridden keys and their values.  Cannot be modified.
+	 */
+	public Map<String, String> getOverrides() {
+		return overrides;
+	}
+	
+	public Translator getBase() {
+		return base;
+	}
+	
+	private Map<String, String> copy(int size){
+		//Size the map so that it never needs to grow
+		Map<String, String> copy = new HashMap<String, String>((int) (size / 0.75f) + 1);
+		copy.putAll(overrides);
+		return copy;
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Created on Oct 19, 2026 by agent
+ */
+package ca.digitalcave.moss.i18n;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Compares the lookup speed and memory usage of the ways a Translator can
+ * store its translations: the default storage, freeze() and moveOffHeap().
+ * For each one we time get() for every key in a shuffled order (hits),
+ * and for the same number of keys which are not translated (misses), and
+ * report the best of several rounds.  To show how predictable lookups
+ * are, the hits are also timed in small batches, and the median and 99th
+ * percentile batch are reported.
+ *
+ * This is a development tool, kept in tools/ next to TranslatorStress;
+ * it is not included in the jar.  To run it:
+ *
+ * <code>
+ * java -cp ... ca.digitalcave.moss.i18n.LookupBenchmark [-keys 1000000] [-rounds 10]
+ * </code>
+ *
+ * @author agent
+ *
+ */
+public class LookupBenchmark {
+
+	private static final int BATCH = 64;
+
+	private final String[] hits;
+	private final String[] misses;
+	private final Properties translations = new Properties();
+	private final int rounds;
+
+	//Keeps the JIT from removing the lookups
+	private long checksum = 0;
+
+	public LookupBenchmark(int keys, int rounds) {
+		this.rounds = rounds;
+		hits = new String[keys];
+		misses = new String[keys];
+		for (int i = 0; i < keys; i++) {
+			String key = "KEY_" + i;
+			translations.setProperty(key, "Translation number " + i);
+			//Separate instances, as lookups from other classes would be
+			hits[i] = new String(key);
+			misses[i] = "MISSING_" + i;
+		}
+
+		Random random = new Random(42);
+		Collections.shuffle(Arrays.asList(hits), random);
+		Collections.shuffle(Arrays.asList(misses), random);
+	}
+
+	/**
+	 * Runs the benchmark for one kind of storage, and prints the results.
+	 * @param name The name to print
+	 * @param translator The translator to benchmark
+	 * @param buildNanos The time taken to build the storage
+	 */
+	public void run(String name, Translator translator, long buildNanos){
+		long bestHit = Long.MAX_VALUE;
+		long bestMiss = Long.MAX_VALUE;
+		long[] batches = new long[hits.length / BATCH];
+
+		for (int round = 0; round < rounds; round++) {
+			bestHit = Math.min(bestHit, time(translator, hits));
+			bestMiss = Math.min(bestMiss, time(translator, misses));
+		}
+
+		for (int b = 0; b < batches.length; b++) {
+			long start = System.nanoTime();
+			for (int i = b * BATCH; i < (b + 1) * BATCH; i++) {
+				checksum += translator.get(hits[i]).length();
+			}
+			batches[b] = System.nanoTime() - start;
+		}
+		Arrays.sort(batches);
+
+		MemoryUsage usage = translator.getMemoryUsage();
+		System.out.println(name
+				+ "\thit ns/op=" + (bestHit / hits.length)
+				+ "\tmiss ns/op=" + (bestMiss / misses.length)
+				+ "\tbatch p50 ns/op=" + (batches.length == 0 ? 0 : batches[batches.length / 2] / BATCH)
+				+ "\tbatch p99 ns/op=" + (batches.length == 0 ? 0 : batches[batches.length * 99 / 100] / BATCH)
+				+ "\tindex bytes=" + usage.getIndexBytes()
+				+ "\ttotal bytes=" + usage.getTotalBytes()
+				+ "\tbuild ms=" + (buildNanos / 1000000));
+	}
+
+	private long time(Translator translator, String[] keys){
+		long start = System.nanoTime();
+		for (String key : keys) {
+			checksum += translator.get(key).length();
+		}
+		return System.nanoTime() - start;
+	}
+
+	private Translator load(){
+		Translator translator = new Translator(".lang");
+		List<String> languages = Collections.singletonList("Benchmark");
+		translator.publishLayers(languages, new Properties[]{(Properties) translations.clone()});
+		return translator;
+	}
+
+	public static void main(String[] args) {
+		int keys = 1000000;
+		int rounds = 10;
+
+		for (int i = 0; i < args.length; i++) {
+			if ("-keys".equals(args[i]) && i + 1 < args.length)
+				keys = Integer.parseInt(args[++i]);
+			else if ("-rounds".equals(args[i]) && i + 1 < args.length)
+				rounds = Integer.parseInt(args[++i]);
+			else {
+				System.err.println("Usage: LookupBenchmark [-keys 1000000] [-rounds 10]");
+				System.exit(2);
+			}
+		}
+
+		LookupBenchmark benchmark = new LookupBenchmark(keys, rounds);
+
+		long start = System.nanoTime();
+		Translator translator = benchmark.load();
+		benchmark.run("default", translator, System.nanoTime() - start);
+
+		translator = benchmark.load();
+		start = System.nanoTime();
+		translator.freeze();
+		benchmark.run("frozen", translator, System.nanoTime() - start);
+
+		translator = benchmark.load();
+		start = System.nanoTime();
+		translator.moveOffHeap();
+		benchmark.run("offheap", translator, System.nanoTime() - start);
+
+		System.out.println("checksum=" + benchmark.checksum);
+	}
+}
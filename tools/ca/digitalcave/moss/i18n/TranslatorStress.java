@@ -0,0 +1,282 @@
+/*
+ * Created on Oct 19, 2026 by agent
+ */
+package ca.digitalcave.moss.i18n;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A stress test for concurrent reads of a Translator, while another thread
+ * reloads and edits its translations.  This checks that readers never see
+ * a partially loaded or otherwise torn set of translations, and measures
+ * read throughput for increasing numbers of reader threads, so that
+ * regressions in read scalability show up.
+ *
+ * The writer repeatedly loads two languages from a temporary directory:
+ * a base language containing PAIR_n_A, and a localization containing
+ * PAIR_n_B, with every value set to the generation of that load.  In
+ * between loads it sets and removes EDIT_n keys with setTranslation() and
+ * removeTranslation(), and every few loads it calls freeze() or
+ * moveOffHeap(), so that every kind of catalog is published while readers
+ * are running.
+ *
+ * Each reader reads A, B and then A again for one pair.  Since loads are
+ * published in one step, the generations must satisfy A &lt;= B &lt;= A; a
+ * torn load (e.g. the base language published before the localization)
+ * breaks this in one direction or the other.  Each reader also checks
+ * that the generations and versions it sees never go backwards, and that
+ * every EDIT_n value it sees is at least as new as the last one.
+ *
+ * This is a development tool; it lives in tools/ rather than src/, since
+ * it uses package private hooks of Translator, and is not included in 
+ * the jar.  To run it, compile it against src/ (or the jar's classes):
+ *
+ * <code>
+ * java -cp ... ca.digitalcave.moss.i18n.TranslatorStress [-threads 8] [-seconds 5] [-pairs 1000]
+ * </code>
+ *
+ * One line is printed for each reader thread count (1, 2, 4, ... up to
+ * -threads), with the reads per second in total and per thread, and the
+ * number of loads and edits done meanwhile.  The exit status is 1 if any
+ * inconsistent read was seen, and 0 otherwise.
+ *
+ * @author agent
+ *
+ */
+public class TranslatorStress {
+
+	private static final String SUFFIX = ".lang";
+	private static final List<String> LANGUAGES = Arrays.asList("Base", "Base_(Local)");
+	private static final int EDIT_KEYS = 16;
+
+	private final Translator translator = new Translator(SUFFIX);
+	private final File directory;
+	private final String[] keysA;
+	private final String[] keysB;
+	private final String[] editKeys;
+
+	private final AtomicBoolean running = new AtomicBoolean();
+	private final AtomicLong violations = new AtomicLong();
+	private volatile String firstViolation = null;
+
+	private long loads;
+	private long edits;
+
+	public TranslatorStress(File directory, int pairs) {
+		this.directory = directory;
+		keysA = new String[pairs];
+		keysB = new String[pairs];
+		for (int i = 0; i < pairs; i++) {
+			keysA[i] = "PAIR_" + i + "_A";
+			keysB[i] = "PAIR_" + i + "_B";
+		}
+		editKeys = new String[EDIT_KEYS];
+		for (int i = 0; i < EDIT_KEYS; i++) {
+			editKeys[i] = "EDIT_" + i;
+		}
+	}
+
+	/**
+	 * Runs the given number of readers against the writer for the given
+	 * time.
+	 * @param threads The number of reader threads
+	 * @param millis How long to run for
+	 * @return The total number of reads
+	 */
+	public long run(int threads, long millis) throws IOException, InterruptedException {
+		long generation = System.nanoTime();
+		writeLanguages(generation);
+		translator.loadLanguages(directory, LANGUAGES);
+
+		running.set(true);
+		final long[] reads = new long[threads];
+		List<Thread> readers = new ArrayList<Thread>(threads);
+		for (int t = 0; t < threads; t++) {
+			final int index = t;
+			Thread reader = new Thread("Reader " + t){
+				public void run() {
+					reads[index] = read(index);
+				}
+			};
+			reader.start();
+			readers.add(reader);
+		}
+
+		long end = System.currentTimeMillis() + millis;
+		loads = 0;
+		edits = 0;
+		while (System.currentTimeMillis() < end){
+			generation++;
+			writeLanguages(generation);
+			translator.loadLanguages(directory, LANGUAGES);
+			loads++;
+
+			if (loads % 8 == 0)
+				translator.freeze();
+			else if (loads % 8 == 4)
+				translator.moveOffHeap();
+
+			for (int i = 0; i < EDIT_KEYS; i++) {
+				generation++;
+				if (i % 4 == 3)
+					translator.removeTranslation(editKeys[i]);
+				else
+					translator.setTranslation(editKeys[i], Long.toString(generation));
+				edits++;
+			}
+		}
+
+		running.set(false);
+		long total = 0;
+		for (int t = 0; t < threads; t++) {
+			readers.get(t).join();
+			total += reads[t];
+		}
+		return total;
+	}
+
+	private long read(int seed){
+		long reads = 0;
+		long lastGeneration = 0;
+		long lastVersion = 0;
+		long[] lastEdit = new long[EDIT_KEYS];
+		int pair = seed * 7919;
+
+		while (running.get()){
+			pair = (pair + 1) % keysA.length;
+			long version = translator.getVersion();
+			long a1 = getGeneration(keysA[pair]);
+			long b = getGeneration(keysB[pair]);
+			long a2 = getGeneration(keysA[pair]);
+			reads += 3;
+
+			if (a1 > b || b > a2)
+				violation("Torn load for pair " + pair + ": A=" + a1 + ", B=" + b + ", A=" + a2);
+			if (a1 < lastGeneration)
+				violation("Generation went backwards for pair " + pair + ": " + lastGeneration + " then " + a1);
+			if (version < lastVersion)
+				violation("Version went backwards: " + lastVersion + " then " + version);
+			lastGeneration = a2;
+			lastVersion = version;
+
+			int edit = pair % EDIT_KEYS;
+			long value = getGeneration(editKeys[edit]);
+			reads++;
+			if (value >= 0){
+				if (value < lastEdit[edit])
+					violation("Edit went backwards for " + editKeys[edit] + ": " + lastEdit[edit] + " then " + value);
+				lastEdit[edit] = value;
+			}
+		}
+		return reads;
+	}
+
+	/**
+	 * Returns the generation stored in the given key, or -1 if the key is
+	 * not translated.
+	 */
+	private long getGeneration(String key){
+		String value = translator.get(key);
+		if (value == key)
+			return -1;
+		try {
+			return Long.parseLong(value);
+		}
+		catch (NumberFormatException nfe){
+			violation("Unexpected value for " + key + ": " + value);
+			return -1;
+		}
+	}
+
+	private void violation(String message){
+		if (violations.getAndIncrement() == 0)
+			firstViolation = message;
+	}
+
+	private void writeLanguages(long generation) throws IOException {
+		Properties base = new Properties();
+		Properties local = new Properties();
+		String value = Long.toString(generation);
+		for (int i = 0; i < keysA.length; i++) {
+			base.setProperty(keysA[i], value);
+			local.setProperty(keysB[i], value);
+		}
+		write(base, new File(directory, LANGUAGES.get(0) + SUFFIX));
+		write(local, new File(directory, LANGUAGES.get(1) + SUFFIX));
+	}
+
+	private static void write(Properties translations, File file) throws IOException {
+		OutputStream os = new BufferedOutputStream(new FileOutputStream(file));
+		try {
+			translations.store(os, null);
+		}
+		finally {
+			os.close();
+		}
+	}
+
+	public long getViolations() {
+		return violations.get();
+	}
+
+	public String getFirstViolation() {
+		return firstViolation;
+	}
+
+	public static void main(String[] args) throws Exception {
+		int maxThreads = Runtime.getRuntime().availableProcessors();
+		int seconds = 5;
+		int pairs = 1000;
+
+		for (int i = 0; i < args.length; i++) {
+			if ("-threads".equals(args[i]) && i + 1 < args.length)
+				maxThreads = Integer.parseInt(args[++i]);
+			else if ("-seconds".equals(args[i]) && i + 1 < args.length)
+				seconds = Integer.parseInt(args[++i]);
+			else if ("-pairs".equals(args[i]) && i + 1 < args.length)
+				pairs = Integer.parseInt(args[++i]);
+			else {
+				System.err.println("Usage: TranslatorStress [-threads " + maxThreads + "] [-seconds 5] [-pairs 1000]");
+				System.exit(2);
+			}
+		}
+
+		File directory = File.createTempFile("stress.", ".dir");
+		directory.delete();
+		directory.mkdirs();
+		try {
+			TranslatorStress stress = new TranslatorStress(directory, pairs);
+			for (int threads = 1; threads <= maxThreads; threads = (threads * 2 > maxThreads && threads < maxThreads ? maxThreads : threads * 2)) {
+				long reads = stress.run(threads, seconds * 1000L);
+				long perSecond = reads / seconds;
+				System.out.println("threads=" + threads
+						+ "\treads/s=" + perSecond
+						+ "\treads/s/thread=" + (perSecond / threads)
+						+ "\tloads=" + stress.loads
+						+ "\tedits=" + stress.edits
+						+ "\tviolations=" + stress.getViolations());
+			}
+
+			if (stress.getViolations() > 0){
+				System.out.println("First violation: " + stress.getFirstViolation());
+				System.exit(1);
+			}
+		}
+		finally {
+			for (String language : LANGUAGES) {
+				new File(directory, language + SUFFIX).delete();
+			}
+			directory.delete();
+		}
+	}
+}